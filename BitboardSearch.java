@@ -0,0 +1,491 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Alpha-beta search over bitboard positions of any {@link Geometry}, used by the
+ * AI on boards too large for the button-based minimax.
+ * Positions are given from the side to move: {@code mine} holds its stones and
+ * {@code theirs} the opponent's. Scores are in the same perspective.
+ */
+final class BitboardSearch {
+    /** Score of a won position, reduced by the number of plies to the win. */
+    static final int WIN = 1_000_000;
+
+    private static final int INFINITY = WIN + 1;
+
+    /** Scores beyond this are wins or losses, stored relative to the node in the table. */
+    private static final int PROVEN = WIN - 1000;
+
+    /**
+     * Receives the result of every completed iteration while a search runs.
+     */
+    interface Listener {
+        /**
+         * @param depth    The completed depth.
+         * @param score    Score for the side to move.
+         * @param nodes    Nodes visited so far by the reporting thread.
+         * @param bestMove The best move at this depth.
+         */
+        void iterationDone(int depth, int score, long nodes, int bestMove);
+    }
+
+    private final Geometry geometry;
+
+    /** Shared transposition table, or null to search without one. */
+    private final TranspositionTable table;
+
+    /** Keeps positions of different boards apart in a shared table. */
+    private final long salt;
+
+    /** Weight of an open line by the number of stones already on it. */
+    private final int[] lineWeights;
+
+    /** Static move ordering: cells on more lines are tried first. */
+    private final int[] cellOrder;
+
+    private int threads = 1;
+    private int depthLimit = Integer.MAX_VALUE;
+    private long nodeLimit = Long.MAX_VALUE;
+    private Listener listener;
+    private long deadline;
+    private volatile boolean stopRequested;
+    private boolean aborted;
+    private long nodes;
+    private int lastDepth;
+
+    /**
+     * Create a search for the given board without a transposition table.
+     *
+     * @param geometry The board layout and winning lines.
+     */
+    BitboardSearch(Geometry geometry) {
+        this(geometry, null);
+    }
+
+    /**
+     * Create a search for the given board.
+     *
+     * @param geometry The board layout and winning lines.
+     * @param table    Transposition table, possibly shared with other searches, or null.
+     */
+    BitboardSearch(Geometry geometry, TranspositionTable table) {
+        this.geometry = geometry;
+        this.table = table;
+        this.salt = TranspositionTable.mix(geometry.toString().hashCode());
+
+        lineWeights = new int[geometry.k + 1];
+        for (int stones = 1; stones <= geometry.k; stones++) {
+            lineWeights[stones] = 1 << (3 * (stones - 1));
+        }
+
+        Integer[] cells = new Integer[geometry.cells];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = i;
+        }
+        Arrays.sort(cells, (a, b) -> geometry.linesThrough[b].length - geometry.linesThrough[a].length);
+        cellOrder = new int[cells.length];
+        for (int i = 0; i < cells.length; i++) {
+            cellOrder[i] = cells[i];
+        }
+    }
+
+    /**
+     * Set the number of threads. Extra threads search the same root with
+     * different move orders and share results through the transposition table.
+     *
+     * @param threads Number of threads, 1 for a single-threaded search.
+     */
+    void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Limit the depth of the next searches.
+     *
+     * @param depthLimit Maximum depth in plies, or {@code Integer.MAX_VALUE} for none.
+     */
+    void setDepthLimit(int depthLimit) {
+        this.depthLimit = Math.max(1, depthLimit);
+    }
+
+    /**
+     * Limit the nodes of the next searches, counted on the main thread.
+     *
+     * @param nodeLimit Maximum nodes, or {@code Long.MAX_VALUE} for none.
+     */
+    void setNodeLimit(long nodeLimit) {
+        this.nodeLimit = Math.max(1, nodeLimit);
+    }
+
+    /**
+     * @param listener Called after each completed iteration, or null.
+     */
+    void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Ask the search to return as soon as possible with its best move so far.
+     * The request sticks: a stop sent before {@link #bestMove} has started still
+     * ends that search, and every later one, so create a new search after stopping.
+     */
+    void stop() {
+        stopRequested = true;
+    }
+
+    /**
+     * @return True once {@link #stop} has been called.
+     */
+    boolean isStopped() {
+        return stopRequested;
+    }
+
+    /**
+     * Find the best move with iterative deepening until the time budget runs out.
+     *
+     * @param mine       Stones of the side to move.
+     * @param theirs     Stones of the opponent.
+     * @param timeMillis Time budget in milliseconds, or {@code Long.MAX_VALUE} for none.
+     * @return The chosen cell index, or -1 if the board is full.
+     */
+    int bestMove(long mine, long theirs, long timeMillis) {
+        long now = System.nanoTime();
+        deadline = timeMillis >= (Long.MAX_VALUE - now) / 1_000_000L ? Long.MAX_VALUE : now + timeMillis * 1_000_000L;
+        nodes = 0;
+        lastDepth = 0;
+
+        long empty = geometry.full & ~(mine | theirs);
+        if (empty == 0) {
+            return -1;
+        }
+
+        // Take an immediate win without searching
+        long wins = geometry.winningCells(mine, theirs) & empty;
+        if (wins != 0) {
+            return Long.numberOfTrailingZeros(wins);
+        }
+
+        // Helpers only make sense when they can share what they find
+        int helperCount = table != null ? threads - 1 : 0;
+        BitboardSearch[] helpers = new BitboardSearch[helperCount];
+        Thread[] helperThreads = new Thread[helperCount];
+        for (int i = 0; i < helperCount; i++) {
+            BitboardSearch helper = new BitboardSearch(geometry, table);
+            helper.deadline = deadline;
+            int offset = i + 1;
+            helpers[i] = helper;
+            helperThreads[i] = new Thread(() -> helper.iterate(mine, theirs, offset), "Search Helper " + offset);
+            helperThreads[i].setDaemon(true);
+            helperThreads[i].start();
+        }
+
+        int bestMove = iterate(mine, theirs, 0);
+
+        for (int i = 0; i < helperCount; i++) {
+            helpers[i].stop();
+            try {
+                helperThreads[i].join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            nodes += helpers[i].nodes;
+        }
+        return bestMove;
+    }
+
+    /**
+     * Iterative deepening from the root. Helpers pass a non-zero offset, which
+     * rotates the root move order and staggers the starting depth.
+     *
+     * @return The best move of the deepest completed iteration.
+     */
+    private int iterate(long mine, long theirs, int helperOffset) {
+        aborted = false;
+        long empty = geometry.full & ~(mine | theirs);
+        int[] moves = orderedMoves(empty);
+        if (helperOffset > 0) {
+            rotate(moves, helperOffset % moves.length);
+        }
+        int bestMove = moves[0];
+        int maxDepth = Long.bitCount(empty);
+        int lastIteration = helperOffset > 0 ? maxDepth : Math.min(maxDepth, depthLimit);
+
+        for (int depth = 1 + (helperOffset & 1); depth <= lastIteration; depth++) {
+            int alpha = -INFINITY;
+            int iterationBest = -1;
+            for (int move : moves) {
+                int score = -search(theirs, mine | (1L << move), depth - 1, 1, -INFINITY, -alpha);
+                if (aborted) {
+                    break;
+                }
+                if (score > alpha) {
+                    alpha = score;
+                    iterationBest = move;
+                }
+            }
+            if (aborted) {
+                break;
+            }
+
+            bestMove = iterationBest;
+            lastDepth = depth;
+            moveToFront(moves, bestMove);
+            if (listener != null && helperOffset == 0) {
+                listener.iterationDone(depth, alpha, nodes, bestMove);
+            }
+
+            // A proven result will not change with more depth
+            if (Math.abs(alpha) >= WIN - maxDepth) {
+                break;
+            }
+        }
+
+        return bestMove;
+    }
+
+    /**
+     * Negamax with alpha-beta pruning, a transposition table and forced-move extensions.
+     *
+     * @param mine   Stones of the side to move.
+     * @param theirs Stones of the opponent.
+     * @param depth  Remaining depth in plies.
+     * @param ply    Distance from the root.
+     * @param alpha  Lower bound for the side to move.
+     * @param beta   Upper bound for the side to move.
+     * @return The score of the position for the side to move.
+     */
+    private int search(long mine, long theirs, int depth, int ply, int alpha, int beta) {
+        if (++nodes >= nodeLimit || ((nodes & 1023) == 0 && (stopRequested || System.nanoTime() > deadline))) {
+            aborted = true;
+        }
+        if (aborted) {
+            return 0;
+        }
+
+        long empty = geometry.full & ~(mine | theirs);
+        if (empty == 0) {
+            return 0;
+        }
+        if ((geometry.winningCells(mine, theirs) & empty) != 0) {
+            return WIN - ply - 1;
+        }
+
+        // An open threat of the opponent must be blocked; two cannot be
+        long threats = geometry.winningCells(theirs, mine) & empty;
+        if (Long.bitCount(threats) > 1) {
+            return -(WIN - ply - 2);
+        }
+        if (threats != 0) {
+            int block = Long.numberOfTrailingZeros(threats);
+            return -search(theirs, mine | (1L << block), depth, ply + 1, -beta, -alpha);
+        }
+
+        if (depth <= 0) {
+            return evaluate(mine, theirs);
+        }
+
+        long key = 0;
+        int tableMove = -1;
+        if (table != null) {
+            key = TranspositionTable.hash(mine, theirs) ^ salt;
+            long entry = table.probe(key);
+            if (entry != 0) {
+                tableMove = TranspositionTable.move(entry);
+                if (TranspositionTable.depth(entry) >= depth) {
+                    int score = fromTable(TranspositionTable.score(entry), ply);
+                    int bound = TranspositionTable.bound(entry);
+                    if (bound == TranspositionTable.EXACT
+                            || (bound == TranspositionTable.LOWER && score >= beta)
+                            || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                        return score;
+                    }
+                }
+            }
+        }
+
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        int bestMove = -1;
+        // The table move goes first, then the static order without it
+        for (int i = -1; i < cellOrder.length; i++) {
+            int move = i < 0 ? tableMove : cellOrder[i];
+            if (move < 0 || (empty & (1L << move)) == 0 || (i >= 0 && move == tableMove)) {
+                continue;
+            }
+            int score = -search(theirs, mine | (1L << move), depth - 1, ply + 1, -beta, -alpha);
+            if (score > best) {
+                best = score;
+                bestMove = move;
+            }
+            if (score > alpha) {
+                alpha = score;
+            }
+            if (alpha >= beta) {
+                break;
+            }
+        }
+
+        if (table != null && !aborted) {
+            int bound = best <= originalAlpha ? TranspositionTable.UPPER
+                    : best >= beta ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+            table.store(key, TranspositionTable.pack(toTable(best, ply), Math.min(depth, 255), bound, bestMove));
+        }
+        return best;
+    }
+
+    /**
+     * Make win and loss scores relative to the node before storing them.
+     */
+    private static int toTable(int score, int ply) {
+        if (score > PROVEN) {
+            return score + ply;
+        }
+        if (score < -PROVEN) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    /**
+     * Make stored win and loss scores relative to the root again.
+     */
+    private static int fromTable(int score, int ply) {
+        if (score > PROVEN) {
+            return score - ply;
+        }
+        if (score < -PROVEN) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    /**
+     * Pick a uniformly random empty cell.
+     *
+     * @param geometry The board.
+     * @param mine     Stones of the side to move.
+     * @param theirs   Stones of the opponent.
+     * @param random   Source of randomness.
+     * @return The chosen cell index, or -1 if the board is full.
+     */
+    static int randomMove(Geometry geometry, long mine, long theirs, SplittableRandom random) {
+        long empty = geometry.full & ~(mine | theirs);
+        int count = Long.bitCount(empty);
+        if (count == 0) {
+            return -1;
+        }
+        for (int skip = random.nextInt(count); skip > 0; skip--) {
+            empty &= empty - 1; // Drop the lowest empty cell
+        }
+        return Long.numberOfTrailingZeros(empty);
+    }
+
+    /**
+     * Win if possible, block the opponent's win, otherwise play randomly.
+     *
+     * @param geometry The board.
+     * @param mine     Stones of the side to move.
+     * @param theirs   Stones of the opponent.
+     * @param random   Source of randomness.
+     * @return The chosen cell index, or -1 if the board is full.
+     */
+    static int winOrBlockMove(Geometry geometry, long mine, long theirs, SplittableRandom random) {
+        long empty = geometry.full & ~(mine | theirs);
+        long wins = geometry.winningCells(mine, theirs) & empty;
+        if (wins != 0) {
+            return Long.numberOfTrailingZeros(wins);
+        }
+        long blocks = geometry.winningCells(theirs, mine) & empty;
+        if (blocks != 0) {
+            return Long.numberOfTrailingZeros(blocks);
+        }
+        return randomMove(geometry, mine, theirs, random);
+    }
+
+    /**
+     * Static evaluation: lines open to only one player count for that player,
+     * weighted by how many stones they already hold.
+     */
+    private int evaluate(long mine, long theirs) {
+        int score = 0;
+        for (long line : geometry.lines) {
+            long own = line & mine;
+            long other = line & theirs;
+            if (other == 0) {
+                score += lineWeights[Long.bitCount(own)];
+            } else if (own == 0) {
+                score -= lineWeights[Long.bitCount(other)];
+            }
+        }
+        return score;
+    }
+
+    private int[] orderedMoves(long empty) {
+        int[] moves = new int[Long.bitCount(empty)];
+        int count = 0;
+        for (int cell : cellOrder) {
+            if ((empty & (1L << cell)) != 0) {
+                moves[count++] = cell;
+            }
+        }
+        return moves;
+    }
+
+    private static void rotate(int[] moves, int by) {
+        int[] copy = moves.clone();
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = copy[(i + by) % moves.length];
+        }
+    }
+
+    private static void moveToFront(int[] moves, int move) {
+        for (int i = 0; i < moves.length; i++) {
+            if (moves[i] == move) {
+                System.arraycopy(moves, 0, moves, 1, i);
+                moves[0] = move;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Follow the best moves stored in the transposition table from a position.
+     *
+     * @param mine     Stones of the side to move.
+     * @param theirs   Stones of the opponent.
+     * @param first    The move to start with.
+     * @param maxMoves Maximum length of the line.
+     * @return The principal variation, starting with {@code first}.
+     */
+    int[] principalVariation(long mine, long theirs, int first, int maxMoves) {
+        int[] line = new int[Math.max(1, maxMoves)];
+        int length = 0;
+        int move = first;
+        while (move >= 0 && length < line.length && ((mine | theirs) & (1L << move)) == 0) {
+            line[length++] = move;
+            long next = mine | (1L << move);
+            if (geometry.isWinAt(next, move) || table == null) {
+                break;
+            }
+            mine = theirs;
+            theirs = next;
+            long entry = table.probe(TranspositionTable.hash(mine, theirs) ^ salt);
+            move = entry != 0 ? TranspositionTable.move(entry) : -1;
+        }
+        return Arrays.copyOf(line, length);
+    }
+
+    /**
+     * @return Number of positions visited by the last search, over all threads.
+     */
+    long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return Deepest fully completed iteration of the last search.
+     */
+    int getLastDepth() {
+        return lastDepth;
+    }
+}
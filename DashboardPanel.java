@@ -0,0 +1,399 @@
+import javax.swing.*;
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs many AI-vs-AI games at once and shows them as a grid of miniature boards.
+ * X plays a depth-limited search and O plays win-or-block, so the games differ.
+ * Each game draws from its own generator split from the run's seed, so a run
+ * started with the same seed (see {@link TicTacToe#randomSeed}) replays the same
+ * games whatever the thread count.
+ * Game threads only write the bitboards and raise a dirty flag; a Swing timer
+ * repaints the whole grid at most once per frame, however many moves were made
+ * in between. Games and moves per second and move latency are shown below the
+ * grid; the rates count only the time spent choosing moves, so the pause that
+ * keeps each finished game on screen does not lower them.
+ */
+final class DashboardPanel extends JPanel {
+    private static final long serialVersionUID = 1L;
+
+    private static final int FRAME_MILLIS = 16;
+    private static final long STATS_NANOS = 1_000_000_000L;
+    private static final long RESULT_HOLD_NANOS = 500_000_000L; // keep a finished game on screen
+    private static final int SEARCH_DEPTH = 4;
+    private static final long SEARCH_NODES = 20_000;
+
+    private static final Color BACKGROUND = new Color(245, 245, 245); // White Smoke
+    private static final Color X_COLOR = new Color(70, 130, 180); // Steel Blue
+    private static final Color O_COLOR = new Color(220, 20, 60); // Crimson
+    private static final Color LINE_COLOR = new Color(255, 215, 0); // Gold
+
+    private final Geometry[] boardGeometries;
+
+    private final JComboBox<String> boardComboBox;
+    private final JSpinner gamesSpinner;
+    private final JButton startStopButton;
+    private final JLabel statsLabel;
+    private final BoardGrid boardGrid;
+    private final Timer frameTimer;
+
+    // Written by game threads, read when painting: X, O and winning line per game
+    private volatile Geometry geometry = Geometry.CLASSIC;
+    private volatile AtomicLongArray boards = new AtomicLongArray(0);
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private volatile boolean running;
+    private long runSeed;
+    private int playerThreads;
+    private ExecutorService workers;
+
+    private final LongAdder gamesPlayed = new LongAdder();
+    private final LongAdder movesPlayed = new LongAdder();
+    private final LongAdder moveNanos = new LongAdder();
+    private final LongAccumulator maxMoveNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder xWins = new LongAdder();
+    private final LongAdder oWins = new LongAdder();
+    private final LongAdder draws = new LongAdder();
+    private long statsStart;
+    private long statsGames;
+    private long statsMoves;
+    private long statsNanos;
+
+    /**
+     * Build the dashboard.
+     *
+     * @param boardNames      Names of the selectable boards.
+     * @param boardGeometries The boards, parallel to the names.
+     * @param onBack          Called on the Swing thread when the user leaves the dashboard.
+     */
+    DashboardPanel(String[] boardNames, Geometry[] boardGeometries, Runnable onBack) {
+        this.boardGeometries = boardGeometries;
+        setLayout(new BorderLayout());
+        setBackground(BACKGROUND);
+
+        // Controls
+        JPanel controlPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 10));
+        controlPanel.setBackground(BACKGROUND);
+
+        boardComboBox = new JComboBox<>(boardNames);
+        boardComboBox.setFont(new Font("Arial", Font.PLAIN, 16));
+        controlPanel.add(boardComboBox);
+
+        JLabel gamesLabel = new JLabel("Games:");
+        gamesLabel.setFont(new Font("Arial", Font.PLAIN, 16));
+        controlPanel.add(gamesLabel);
+        gamesSpinner = new JSpinner(new SpinnerNumberModel(100, 1, 400, 10));
+        gamesSpinner.setFont(new Font("Arial", Font.PLAIN, 16));
+        controlPanel.add(gamesSpinner);
+
+        startStopButton = new JButton("Start");
+        startStopButton.setFont(new Font("Arial", Font.BOLD, 16));
+        startStopButton.setFocusPainted(false);
+        startStopButton.setBackground(new Color(60, 179, 113)); // Medium Sea Green
+        startStopButton.setForeground(Color.WHITE);
+        startStopButton.addActionListener(e -> {
+            if (running) {
+                stopGames();
+            } else {
+                startGames();
+            }
+        });
+        controlPanel.add(startStopButton);
+
+        JButton backButton = new JButton("Back to Menu");
+        backButton.setFont(new Font("Arial", Font.PLAIN, 16));
+        backButton.setFocusPainted(false);
+        backButton.setBackground(new Color(70, 130, 180)); // Steel Blue
+        backButton.setForeground(Color.WHITE);
+        backButton.addActionListener(e -> {
+            stopGames();
+            onBack.run();
+        });
+        controlPanel.add(backButton);
+
+        add(controlPanel, BorderLayout.NORTH);
+
+        // Miniature boards
+        boardGrid = new BoardGrid();
+        add(boardGrid, BorderLayout.CENTER);
+
+        // Live statistics
+        statsLabel = new JLabel("Press Start to run AI-vs-AI games");
+        statsLabel.setHorizontalAlignment(SwingConstants.CENTER);
+        statsLabel.setFont(new Font("Arial", Font.PLAIN, 14));
+        statsLabel.setBorder(BorderFactory.createEmptyBorder(10, 0, 10, 0));
+        add(statsLabel, BorderLayout.SOUTH);
+
+        // Coalesce every move made since the last frame into one repaint
+        frameTimer = new Timer(FRAME_MILLIS, e -> onFrame());
+    }
+
+    /**
+     * Start a fresh set of games on one thread per core.
+     */
+    private void startGames() {
+        int games = (Integer) gamesSpinner.getValue();
+        geometry = boardGeometries[boardComboBox.getSelectedIndex()];
+        boards = new AtomicLongArray(games * 3);
+        runSeed = TicTacToe.randomSeed();
+        SplittableRandom seedSource = new SplittableRandom(runSeed);
+        SplittableRandom[] randoms = new SplittableRandom[games];
+        for (int game = 0; game < games; game++) {
+            randoms[game] = seedSource.split();
+        }
+
+        gamesPlayed.reset();
+        movesPlayed.reset();
+        moveNanos.reset();
+        maxMoveNanos.reset();
+        xWins.reset();
+        oWins.reset();
+        draws.reset();
+        statsStart = System.nanoTime();
+        statsGames = 0;
+        statsMoves = 0;
+        statsNanos = 0;
+
+        running = true;
+        int threads = Math.min(games, Runtime.getRuntime().availableProcessors());
+        playerThreads = threads;
+        workers = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "Dashboard Player");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Geometry board = geometry;
+        AtomicLongArray slots = boards;
+        for (int i = 0; i < threads; i++) {
+            int first = i;
+            workers.execute(() -> playGames(board, slots, randoms, first, threads));
+        }
+
+        boardComboBox.setEnabled(false);
+        gamesSpinner.setEnabled(false);
+        startStopButton.setText("Stop");
+        startStopButton.setBackground(new Color(220, 20, 60)); // Crimson
+        statsLabel.setText("Starting " + games + " games on " + threads + " threads, seed " + runSeed + "...");
+        frameTimer.start();
+    }
+
+    /**
+     * Stop every game thread. Safe to call when nothing is running.
+     */
+    void stopGames() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        workers.shutdownNow();
+        workers = null;
+        frameTimer.stop();
+        boardGrid.repaint();
+
+        boardComboBox.setEnabled(true);
+        gamesSpinner.setEnabled(true);
+        startStopButton.setText("Start");
+        startStopButton.setBackground(new Color(60, 179, 113)); // Medium Sea Green
+    }
+
+    /**
+     * Game thread loop: advance each owned game by one move in turn, so all of
+     * them progress together. A finished game stays on screen for a moment and
+     * then starts over.
+     *
+     * @param board   The board being played.
+     * @param slots   Shared X, O and winning line of every game.
+     * @param randoms Random generator of every game, only used by its owner.
+     * @param first   The first game owned by this thread.
+     * @param step    Number of threads; this thread owns every step-th game.
+     */
+    private void playGames(Geometry board, AtomicLongArray slots, SplittableRandom[] randoms, int first, int step) {
+        int games = slots.length() / 3;
+        BitboardSearch search = new BitboardSearch(board);
+        search.setDepthLimit(SEARCH_DEPTH);
+        search.setNodeLimit(SEARCH_NODES);
+        long[] finishedAt = new long[games];
+        boolean[] finished = new boolean[games];
+
+        while (running && slots == boards) { // a restart hands out new slots
+            boolean changed = false;
+            for (int game = first; game < games && running; game += step) {
+                if (finished[game]) {
+                    if (System.nanoTime() - finishedAt[game] >= RESULT_HOLD_NANOS) {
+                        slots.set(game * 3, 0);
+                        slots.set(game * 3 + 1, 0);
+                        slots.set(game * 3 + 2, 0);
+                        finished[game] = false;
+                        changed = true;
+                    }
+                    continue;
+                }
+
+                long x = slots.get(game * 3);
+                long o = slots.get(game * 3 + 1);
+                boolean xToMove = Long.bitCount(x) == Long.bitCount(o);
+
+                long start = System.nanoTime();
+                int move = xToMove
+                        ? search.bestMove(x, o, Long.MAX_VALUE)
+                        : BitboardSearch.winOrBlockMove(board, o, x, randoms[game]);
+                long elapsed = System.nanoTime() - start;
+                movesPlayed.increment();
+                moveNanos.add(elapsed);
+                maxMoveNanos.accumulate(elapsed);
+
+                long stones = (xToMove ? x : o) | (1L << move);
+                slots.set(xToMove ? game * 3 : game * 3 + 1, stones);
+                changed = true;
+
+                if (board.isWinAt(stones, move)) {
+                    slots.set(game * 3 + 2, board.winningLine(stones));
+                    (xToMove ? xWins : oWins).increment();
+                } else if (((x | o) | (1L << move)) == board.full) {
+                    draws.increment();
+                } else {
+                    continue;
+                }
+                gamesPlayed.increment();
+                finished[game] = true;
+                finishedAt[game] = System.nanoTime();
+            }
+
+            if (changed) {
+                dirty.set(true);
+            } else {
+                // Every owned game is showing its result
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException ex) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Called once per frame on the Swing thread.
+     */
+    private void onFrame() {
+        if (dirty.getAndSet(false)) {
+            boardGrid.repaint();
+        }
+
+        long now = System.nanoTime();
+        if (now - statsStart < STATS_NANOS) {
+            return;
+        }
+        long games = gamesPlayed.sum();
+        long moves = movesPlayed.sum();
+        long nanos = moveNanos.sum();
+        long intervalMoves = moves - statsMoves;
+        // Thread time spent on moves, spread over the threads; results on hold are left out
+        double busySeconds = Math.max(1, nanos - statsNanos) / 1e9 / playerThreads;
+        statsLabel.setText(String.format(
+                "%.0f games/s, %.0f moves/s, move latency avg %.1f µs, max %.1f µs | X %d, O %d, draws %d | seed %d",
+                (games - statsGames) / busySeconds, intervalMoves / busySeconds,
+                intervalMoves == 0 ? 0 : (nanos - statsNanos) / 1e3 / intervalMoves,
+                maxMoveNanos.getThenReset() / 1e3,
+                xWins.sum(), oWins.sum(), draws.sum(), runSeed));
+        statsStart = now;
+        statsGames = games;
+        statsMoves = moves;
+        statsNanos = nanos;
+    }
+
+    /**
+     * Paints every game as a miniature board; 3D boards show their layers in a
+     * small grid, as on the game panel.
+     */
+    private final class BoardGrid extends JComponent {
+        private static final long serialVersionUID = 1L;
+        private static final int TILE_GAP = 2; // cells between boards
+        private static final int LAYER_GAP = 1; // cells between layers
+
+        BoardGrid() {
+            setPreferredSize(new Dimension(660, 620));
+        }
+
+        @Override
+        protected void paintComponent(Graphics graphics) {
+            Graphics2D g = (Graphics2D) graphics;
+            g.setColor(BACKGROUND);
+            g.fillRect(0, 0, getWidth(), getHeight());
+
+            Geometry board = geometry;
+            AtomicLongArray slots = boards;
+            int games = slots.length() / 3;
+            if (games == 0) {
+                return;
+            }
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+            int layerColumns = (int) Math.ceil(Math.sqrt(board.depth));
+            int layerRows = (board.depth + layerColumns - 1) / layerColumns;
+            int tileWidth = layerColumns * board.width + (layerColumns - 1) * LAYER_GAP + TILE_GAP;
+            int tileHeight = layerRows * board.height + (layerRows - 1) * LAYER_GAP + TILE_GAP;
+
+            // Pick the number of columns that gives the largest cells
+            int columns = 1;
+            int cellSize = 0;
+            for (int c = 1; c <= games; c++) {
+                int rows = (games + c - 1) / c;
+                int size = Math.min(getWidth() / (c * tileWidth), getHeight() / (rows * tileHeight));
+                if (size > cellSize) {
+                    cellSize = size;
+                    columns = c;
+                }
+            }
+            cellSize = Math.max(1, cellSize);
+
+            for (int game = 0; game < games; game++) {
+                int tileX = (game % columns) * tileWidth * cellSize + TILE_GAP * cellSize / 2;
+                int tileY = (game / columns) * tileHeight * cellSize + TILE_GAP * cellSize / 2;
+                long x = slots.get(game * 3);
+                long o = slots.get(game * 3 + 1);
+                long line = slots.get(game * 3 + 2);
+
+                for (int z = 0; z < board.depth; z++) {
+                    int layerX = tileX + (z % layerColumns) * (board.width + LAYER_GAP) * cellSize;
+                    int layerY = tileY + (z / layerColumns) * (board.height + LAYER_GAP) * cellSize;
+                    g.setColor(Color.WHITE);
+                    g.fillRect(layerX, layerY, board.width * cellSize, board.height * cellSize);
+
+                    for (int y = 0; y < board.height; y++) {
+                        for (int col = 0; col < board.width; col++) {
+                            long bit = 1L << board.index(col, y, z);
+                            int px = layerX + col * cellSize;
+                            int py = layerY + y * cellSize;
+                            if ((line & bit) != 0) {
+                                g.setColor(LINE_COLOR);
+                                g.fillRect(px, py, cellSize, cellSize);
+                            }
+                            if ((x & bit) != 0) {
+                                g.setColor(X_COLOR);
+                                g.fillRect(px + 1, py + 1, cellSize - 2, cellSize - 2);
+                            } else if ((o & bit) != 0) {
+                                g.setColor(O_COLOR);
+                                g.fillOval(px + 1, py + 1, cellSize - 2, cellSize - 2);
+                            }
+                        }
+                    }
+                    g.setColor(Color.LIGHT_GRAY);
+                    g.drawRect(layerX, layerY, board.width * cellSize, board.height * cellSize);
+                }
+            }
+        }
+    }
+}
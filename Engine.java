@@ -0,0 +1,463 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.SplittableRandom;
+
+/**
+ * Text-protocol engine that drives the AI from stdin/stdout without the GUI.
+ * One process serves any number of commands, so scripts can pipe thousands of
+ * positions through it. Cells are numbered from 0 in the order used by
+ * {@link Geometry#index}; X always moves first.
+ *
+ * <pre>
+ * size 4x4x4/4                  set the board (resets the position)
+ * position empty [moves 0 21 3] set the position from the empty board
+ * position board XO..X.O...     set the position cell by cell (X, O or .)
+ * go [movetime ms] [nodes n] [depth d] [infinite]
+ * solve [nodes n]               prove or disprove a forced win for the side to move
+ * playouts [n]                  estimate the side to move's win rate from n random games
+ * seed n                        restart the playout random stream from seed n
+ * stop                          end the running search, which prints bestmove
+ * stats                         report the last search and the table
+ * hash 256 | threads 4          resize the table / set search threads
+ * solved on|off                 answer from solved/&lt;variant&gt;.db when present (default on)
+ * isready                       answers readyok, even while searching
+ * quit
+ * </pre>
+ *
+ * Commands that change state or start a search wait for the running search, so
+ * a script can pipe {@code position}/{@code go} pairs without waiting for output.
+ *
+ * A search prints {@code info depth .. score .. nodes .. nps .. time .. pv ..}
+ * after each completed iteration and finishes with {@code bestmove <cell>}.
+ * Scores are {@code cp n} for heuristic values, or {@code win n} / {@code loss n}
+ * plies for proven results. Before searching, {@code go} tries a quick proof-number
+ * solve and plays a forced win at once when it finds one; the solve counts
+ * against the movetime and ends on {@code stop}.
+ * {@code solve} answers {@code result win <cell>}, {@code result nowin} or
+ * {@code result unknown}, followed by the nodes and time used.
+ * {@code playouts} answers {@code result playouts n win w draw d loss l score s time t},
+ * where the score counts a draw as half a win. Playouts draw from one stream
+ * seeded by {@code seed}, or by -Dtictactoe.seed at startup, so a script that
+ * sets the seed gets the same counts on every run.
+ */
+final class Engine {
+    private final BufferedReader in;
+    private final PrintStream out;
+
+    private Geometry geometry = Geometry.CLASSIC;
+    private long stonesX;
+    private long stonesO;
+    private int hashMegabytes = 64;
+    private int threads = 1;
+    private boolean useSolved = true;
+    private TranspositionTable table = new TranspositionTable(hashMegabytes);
+    private ProofNumberSearch proofSearch;
+    private SplittableRandom random = new SplittableRandom(TicTacToe.randomSeed());
+
+    private BitboardSearch search;
+    private Thread searchThread;
+    private long lastNodes;
+    private long lastMillis;
+    private int lastDepth;
+
+    Engine(BufferedReader in, PrintStream out) {
+        this.in = in;
+        this.out = out;
+    }
+
+    /**
+     * Read and execute commands until {@code quit} or end of input.
+     *
+     * @throws IOException If reading the input fails.
+     */
+    void run() throws IOException {
+        send("id name TicTacToe Engine", true);
+        String line;
+        while ((line = in.readLine()) != null) {
+            String[] words = line.trim().split("\\s+");
+            if (words[0].isEmpty()) {
+                continue;
+            }
+            try {
+                if (!execute(words)) {
+                    break;
+                }
+            } catch (IllegalArgumentException ex) {
+                send("info string error: " + ex.getMessage(), false);
+            }
+            // Only pay for a flush once the pipelined input has been drained
+            if (!in.ready()) {
+                out.flush();
+            }
+        }
+        stopSearch();
+        out.flush();
+    }
+
+    /**
+     * Execute one command.
+     *
+     * @param words The command and its arguments.
+     * @return False when the engine should quit.
+     */
+    private boolean execute(String[] words) {
+        switch (words[0]) {
+            case "quit":
+                return false;
+            case "stop":
+                stopSearch();
+                break;
+            case "isready":
+                send("readyok", false);
+                break;
+            case "size":
+                waitForSearch();
+                geometry = Geometry.parse(argument(words, 1));
+                proofSearch = null;
+                stonesX = 0;
+                stonesO = 0;
+                break;
+            case "position":
+                waitForSearch();
+                setPosition(words);
+                break;
+            case "go":
+                waitForSearch();
+                go(words);
+                break;
+            case "solve":
+                waitForSearch();
+                solve(words);
+                break;
+            case "playouts":
+                waitForSearch();
+                playouts(words);
+                break;
+            case "seed":
+                random = new SplittableRandom(Long.parseLong(argument(words, 1)));
+                break;
+            case "stats":
+                waitForSearch();
+                reportStats();
+                break;
+            case "hash":
+                waitForSearch();
+                resizeTable(Integer.parseInt(argument(words, 1)));
+                break;
+            case "threads":
+                waitForSearch();
+                threads = Math.max(1, Integer.parseInt(argument(words, 1)));
+                break;
+            case "solved":
+                waitForSearch();
+                useSolved = argument(words, 1).equals("on");
+                break;
+            default:
+                throw new IllegalArgumentException("unknown command '" + words[0] + "'");
+        }
+        return true;
+    }
+
+    private void setPosition(String[] words) {
+        long x = 0;
+        long o = 0;
+        int next = 2;
+        String kind = argument(words, 1);
+
+        if (kind.equals("board")) {
+            String cells = argument(words, 2);
+            if (cells.length() != geometry.cells) {
+                throw new IllegalArgumentException("board needs " + geometry.cells + " cells");
+            }
+            for (int cell = 0; cell < cells.length(); cell++) {
+                char c = Character.toUpperCase(cells.charAt(cell));
+                if (c == 'X') {
+                    x |= 1L << cell;
+                } else if (c == 'O') {
+                    o |= 1L << cell;
+                } else if (c != '.' && c != '-') {
+                    throw new IllegalArgumentException("bad cell '" + c + "'");
+                }
+            }
+            int diff = Long.bitCount(x) - Long.bitCount(o);
+            if (diff != 0 && diff != 1) {
+                throw new IllegalArgumentException("X must have as many stones as O, or one more");
+            }
+            next = 3;
+        } else if (!kind.equals("empty")) {
+            throw new IllegalArgumentException("expected 'position empty' or 'position board'");
+        }
+
+        if (next < words.length && words[next].equals("moves")) {
+            for (int i = next + 1; i < words.length; i++) {
+                int cell = Integer.parseInt(words[i]);
+                if (cell < 0 || cell >= geometry.cells || ((x | o) & (1L << cell)) != 0) {
+                    throw new IllegalArgumentException("illegal move " + cell);
+                }
+                if (Long.bitCount(x) == Long.bitCount(o)) {
+                    x |= 1L << cell;
+                } else {
+                    o |= 1L << cell;
+                }
+            }
+        }
+        stonesX = x;
+        stonesO = o;
+    }
+
+    private void go(String[] words) {
+        long movetime = Long.MAX_VALUE;
+        long nodes = Long.MAX_VALUE;
+        int depth = Integer.MAX_VALUE;
+        boolean limited = false;
+        for (int i = 1; i < words.length; i++) {
+            switch (words[i]) {
+                case "movetime":
+                    movetime = Long.parseLong(argument(words, ++i));
+                    limited = true;
+                    break;
+                case "nodes":
+                    nodes = Long.parseLong(argument(words, ++i));
+                    limited = true;
+                    break;
+                case "depth":
+                    depth = Integer.parseInt(argument(words, ++i));
+                    limited = true;
+                    break;
+                case "infinite":
+                    limited = true;
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown go option '" + words[i] + "'");
+            }
+        }
+        if (!limited) {
+            movetime = 1000;
+        }
+
+        boolean xToMove = Long.bitCount(stonesX) == Long.bitCount(stonesO);
+        long mine = xToMove ? stonesX : stonesO;
+        long theirs = xToMove ? stonesO : stonesX;
+        if (geometry.isWin(theirs) || (mine | theirs) == geometry.full) {
+            send("bestmove none", true);
+            return;
+        }
+
+        if (useSolved && playSolved()) {
+            return;
+        }
+
+        ProofNumberSearch solver = proofSearch();
+        BitboardSearch next = new BitboardSearch(geometry, table);
+        next.setThreads(threads);
+        next.setDepthLimit(depth);
+        next.setNodeLimit(nodes);
+        long start = System.nanoTime();
+        next.setListener((iterationDepth, score, iterationNodes, bestMove) -> {
+            long micros = Math.max(1, (System.nanoTime() - start) / 1000);
+            int[] pv = next.principalVariation(mine, theirs, bestMove, iterationDepth);
+            StringBuilder line = new StringBuilder();
+            line.append("info depth ").append(iterationDepth)
+                    .append(" score ").append(formatScore(score))
+                    .append(" nodes ").append(iterationNodes)
+                    .append(" nps ").append(iterationNodes * 1_000_000 / micros)
+                    .append(" time ").append(micros / 1000)
+                    .append(" pv");
+            for (int move : pv) {
+                line.append(' ').append(move);
+            }
+            send(line.toString(), true);
+        });
+
+        // The quick proof-number solve runs first in the search thread, under the
+        // same deadline and stop as the search, which gets the time left over
+        long deadline = movetime >= (Long.MAX_VALUE - start) / 1_000_000L
+                ? Long.MAX_VALUE : start + movetime * 1_000_000L;
+        search = next;
+        searchThread = new Thread(() -> {
+            if (solver.solve(mine, theirs, ProofNumberSearch.QUICK_NODES, deadline, next::isStopped)
+                    == ProofNumberSearch.Result.WIN) {
+                send("info string proven win nodes " + solver.getNodes() + " pv " + solver.getWinningMove(), true);
+                send("bestmove " + solver.getWinningMove(), true);
+                return;
+            }
+            long remaining = deadline == Long.MAX_VALUE
+                    ? Long.MAX_VALUE : Math.max(0, (deadline - System.nanoTime()) / 1_000_000L);
+            int best = next.bestMove(mine, theirs, remaining);
+            lastMillis = (System.nanoTime() - start) / 1_000_000;
+            lastNodes = next.getNodes();
+            lastDepth = next.getLastDepth();
+            send("bestmove " + best, true);
+        }, "Engine Search");
+        searchThread.start();
+    }
+
+    /**
+     * Run the proof-number solver on the current position.
+     */
+    private void solve(String[] words) {
+        long nodes = 10_000_000;
+        if (words.length > 1) {
+            if (!words[1].equals("nodes")) {
+                throw new IllegalArgumentException("unknown solve option '" + words[1] + "'");
+            }
+            nodes = Long.parseLong(argument(words, 2));
+        }
+
+        boolean xToMove = Long.bitCount(stonesX) == Long.bitCount(stonesO);
+        long mine = xToMove ? stonesX : stonesO;
+        long theirs = xToMove ? stonesO : stonesX;
+        long start = System.nanoTime();
+        ProofNumberSearch solver = proofSearch();
+        ProofNumberSearch.Result result = solver.solve(mine, theirs, nodes);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        String answer;
+        switch (result) {
+            case WIN:
+                answer = "win " + solver.getWinningMove();
+                break;
+            case NO_WIN:
+                answer = "nowin";
+                break;
+            default:
+                answer = "unknown";
+                break;
+        }
+        send("result " + answer + " nodes " + solver.getNodes() + " time " + millis, false);
+    }
+
+    /**
+     * Estimate the current position's value from random playouts.
+     */
+    private void playouts(String[] words) {
+        long games = words.length > 1 ? Long.parseLong(words[1]) : 100_000;
+        if (games < 1) {
+            throw new IllegalArgumentException("playouts needs at least one game");
+        }
+
+        boolean xToMove = Long.bitCount(stonesX) == Long.bitCount(stonesO);
+        long start = System.nanoTime();
+        Playouts playouts = new Playouts(geometry, random.nextLong());
+        playouts.play(xToMove ? stonesX : stonesO, xToMove ? stonesO : stonesX, games);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        send(String.format("result playouts %d win %d draw %d loss %d score %.4f time %d",
+                games, playouts.getWins(), playouts.getDraws(), playouts.getLosses(), playouts.score(), millis), false);
+    }
+
+    /**
+     * Replace the table with one of the given size. The old table is released
+     * first so a resize does not need both in memory; if the new size cannot be
+     * reserved, the previous size is allocated again.
+     */
+    private void resizeTable(int megabytes) {
+        table = null;
+        try {
+            table = new TranspositionTable(megabytes);
+            hashMegabytes = megabytes;
+        } catch (OutOfMemoryError ex) {
+            send("info string error: cannot allocate " + megabytes + " MB table (" + ex.getMessage()
+                    + "), keeping " + hashMegabytes + " MB; raise -XX:MaxDirectMemorySize for larger tables", false);
+            table = new TranspositionTable(hashMegabytes);
+        }
+    }
+
+    private ProofNumberSearch proofSearch() {
+        if (proofSearch == null) {
+            proofSearch = new ProofNumberSearch(geometry, 1 << 20);
+        }
+        return proofSearch;
+    }
+
+    /**
+     * Answer from a solved database if one has been written for this variant.
+     *
+     * @return True if the move was played from the database.
+     */
+    private boolean playSolved() {
+        if (geometry.cells > RetrogradeSolver.MAX_CELLS || !Files.isReadable(SolvedDatabase.fileFor(geometry))) {
+            return false;
+        }
+        SolvedDatabase solved = SolvedDatabase.forGeometry(geometry);
+        int value = solved.probe(stonesX, stonesO);
+        int move = solved.bestMove(stonesX, stonesO);
+        if (value < 0 || move < 0) {
+            return false;
+        }
+        String[] outcomes = {"?", "loss", "draw", "win"};
+        send("info score " + outcomes[SolvedDatabase.outcome(value)] + " " + SolvedDatabase.distance(value)
+                + " pv " + move + " string solved", true);
+        send("bestmove " + move, true);
+        return true;
+    }
+
+    private void reportStats() {
+        send("info string last depth " + lastDepth + " nodes " + lastNodes + " time " + lastMillis
+                + " nps " + (lastNodes * 1000 / Math.max(1, lastMillis)), false);
+        send("info string variant " + geometry + " threads " + threads + " table " + table, false);
+    }
+
+    private static String formatScore(int score) {
+        if (score >= BitboardSearch.WIN - 64) {
+            return "win " + (BitboardSearch.WIN - score);
+        }
+        if (score <= -(BitboardSearch.WIN - 64)) {
+            return "loss " + (BitboardSearch.WIN + score);
+        }
+        return "cp " + score;
+    }
+
+    private void stopSearch() {
+        if (search != null) {
+            search.stop();
+        }
+        waitForSearch();
+    }
+
+    private void waitForSearch() {
+        if (searchThread == null) {
+            return;
+        }
+        try {
+            searchThread.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        searchThread = null;
+        search = null;
+    }
+
+    private static String argument(String[] words, int index) {
+        if (index >= words.length) {
+            throw new IllegalArgumentException("missing argument for '" + words[0] + "'");
+        }
+        return words[index];
+    }
+
+    /**
+     * Print a line; search output is flushed at once so it streams as it deepens.
+     */
+    private synchronized void send(String line, boolean flush) {
+        out.println(line);
+        if (flush) {
+            out.flush();
+        }
+    }
+
+    /**
+     * Run the engine on stdin/stdout.
+     *
+     * @param args Command-line arguments (not used).
+     */
+    public static void main(String[] args) throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.US_ASCII), 1 << 16);
+        PrintStream out = new PrintStream(new BufferedOutputStream(System.out, 1 << 16), false, "US-ASCII");
+        new Engine(in, out).run();
+    }
+}
@@ -0,0 +1,240 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cell layout and winning lines of a k-in-a-row board of up to 64 cells.
+ * Each player's stones are kept in a single {@code long}, and every winning line
+ * is precomputed as a 64-bit mask, so win and threat checks are plain AND/compare
+ * operations.
+ */
+final class Geometry {
+    /** The classic 3x3 board, three in a row. */
+    static final Geometry CLASSIC = new Geometry(3, 3, 1, 3);
+
+    /** The 3D 4x4x4 board (Qubic), four in a row. */
+    static final Geometry QUBIC = new Geometry(4, 4, 4, 4);
+
+    final int width;
+    final int height;
+    final int depth;
+    final int k;
+    final int cells;
+
+    /** Mask with one bit set for every cell on the board. */
+    final long full;
+
+    /** All winning lines, one mask per line. */
+    final long[] lines;
+
+    /** The winning lines passing through each cell. */
+    final long[][] linesThrough;
+
+    /**
+     * Build the geometry of a width x height x depth board where k in a row wins.
+     *
+     * @param width  Number of columns.
+     * @param height Number of rows.
+     * @param depth  Number of layers (1 for a flat board).
+     * @param k      Number of stones in a row needed to win.
+     */
+    Geometry(int width, int height, int depth, int k) {
+        if (width < 1 || height < 1 || depth < 1 || width * height * depth > 64) {
+            throw new IllegalArgumentException("Board must have between 1 and 64 cells");
+        }
+        if (k < 2 || k > Math.max(width, Math.max(height, depth))) {
+            throw new IllegalArgumentException("Line length " + k + " does not fit the board");
+        }
+        this.width = width;
+        this.height = height;
+        this.depth = depth;
+        this.k = k;
+        this.cells = width * height * depth;
+        this.full = cells == 64 ? -1L : (1L << cells) - 1;
+
+        // Walk the 13 directions whose first non-zero component is positive,
+        // so every line is generated exactly once
+        List<Long> found = new ArrayList<>();
+        for (int dz = -1; dz <= 1; dz++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    if (!isForward(dx, dy, dz)) {
+                        continue;
+                    }
+                    for (int z = 0; z < depth; z++) {
+                        for (int y = 0; y < height; y++) {
+                            for (int x = 0; x < width; x++) {
+                                long line = lineFrom(x, y, z, dx, dy, dz);
+                                if (line != 0) {
+                                    found.add(line);
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        lines = new long[found.size()];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = found.get(i);
+        }
+
+        linesThrough = new long[cells][];
+        for (int cell = 0; cell < cells; cell++) {
+            List<Long> through = new ArrayList<>();
+            for (long line : lines) {
+                if ((line & (1L << cell)) != 0) {
+                    through.add(line);
+                }
+            }
+            linesThrough[cell] = new long[through.size()];
+            for (int i = 0; i < through.size(); i++) {
+                linesThrough[cell][i] = through.get(i);
+            }
+        }
+    }
+
+    /**
+     * Parse a variant such as {@code 3x3}, {@code 4x4/3} or {@code 4x4x4/4}.
+     * Without a {@code /k} suffix the line length is the board width.
+     *
+     * @param spec The variant description.
+     * @return The matching geometry.
+     */
+    static Geometry parse(String spec) {
+        String[] parts = spec.trim().split("/");
+        String[] size = parts[0].split("x");
+        if (parts.length > 2 || size.length < 2 || size.length > 3) {
+            throw new IllegalArgumentException("Expected WxH[xD][/K], got '" + spec + "'");
+        }
+        try {
+            int width = Integer.parseInt(size[0]);
+            int height = Integer.parseInt(size[1]);
+            int depth = size.length == 3 ? Integer.parseInt(size[2]) : 1;
+            int k = parts.length == 2 ? Integer.parseInt(parts[1]) : width;
+            return new Geometry(width, height, depth, k);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Expected WxH[xD][/K], got '" + spec + "'");
+        }
+    }
+
+    private static boolean isForward(int dx, int dy, int dz) {
+        if (dz != 0) {
+            return dz > 0;
+        }
+        if (dy != 0) {
+            return dy > 0;
+        }
+        return dx > 0;
+    }
+
+    /**
+     * Mask of the k cells starting at (x, y, z) in the given direction, or 0 if
+     * the line runs off the board.
+     */
+    private long lineFrom(int x, int y, int z, int dx, int dy, int dz) {
+        long line = 0;
+        for (int i = 0; i < k; i++) {
+            int cx = x + i * dx;
+            int cy = y + i * dy;
+            int cz = z + i * dz;
+            if (cx < 0 || cx >= width || cy < 0 || cy >= height || cz < 0 || cz >= depth) {
+                return 0;
+            }
+            line |= 1L << index(cx, cy, cz);
+        }
+        return line;
+    }
+
+    /**
+     * Cell index of the given coordinates.
+     *
+     * @return Index in the range [0, cells).
+     */
+    int index(int x, int y, int z) {
+        return (z * height + y) * width + x;
+    }
+
+    /**
+     * Check whether the given stones contain a complete line.
+     *
+     * @param stones The stones of one player.
+     * @return True if any winning line is fully occupied.
+     */
+    boolean isWin(long stones) {
+        return winningLine(stones) != 0;
+    }
+
+    /**
+     * Check whether the stone just placed on {@code cell} completed a line.
+     *
+     * @param stones The stones of one player, including the new one.
+     * @param cell   The cell that was just played.
+     * @return True if a line through the cell is fully occupied.
+     */
+    boolean isWinAt(long stones, int cell) {
+        for (long line : linesThrough[cell]) {
+            if ((stones & line) == line) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Find a complete line among the given stones.
+     *
+     * @param stones The stones of one player.
+     * @return The mask of a complete line, or 0 if there is none.
+     */
+    long winningLine(long stones) {
+        for (long line : lines) {
+            if ((stones & line) == line) {
+                return line;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Cells that would complete a line for {@code mine} if played now.
+     *
+     * @param mine   The stones of the player to check.
+     * @param theirs The stones of the opponent.
+     * @return Mask of empty cells that win immediately.
+     */
+    long winningCells(long mine, long theirs) {
+        long cellsToWin = 0;
+        for (long line : lines) {
+            if ((line & theirs) == 0 && Long.bitCount(line & mine) == k - 1) {
+                cellsToWin |= line & ~mine;
+            }
+        }
+        return cellsToWin;
+    }
+
+    /**
+     * Like {@link #winningCells}, but only for the lines through one cell, e.g.
+     * to find the threats created by the stone just placed there.
+     *
+     * @param mine   The stones of the player to check.
+     * @param theirs The stones of the opponent.
+     * @param cell   The cell whose lines are checked.
+     * @return Mask of cells that win immediately along those lines.
+     */
+    long winningCellsThrough(long mine, long theirs, int cell) {
+        long cellsToWin = 0;
+        for (long line : linesThrough[cell]) {
+            if ((line & theirs) == 0 && Long.bitCount(line & mine) == k - 1) {
+                cellsToWin |= line & ~mine;
+            }
+        }
+        return cellsToWin;
+    }
+
+    @Override
+    public String toString() {
+        String size = depth == 1 ? width + "x" + height : width + "x" + height + "x" + depth;
+        return size + "/" + k;
+    }
+}
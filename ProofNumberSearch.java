@@ -0,0 +1,291 @@
+import java.util.function.BooleanSupplier;
+
+/**
+ * Depth-first proof-number (df-pn) solver that proves or disproves that the side
+ * to move can force a win, without scoring how good the position is.
+ * Nodes are kept in a fixed-size table, so memory stays bounded however long
+ * the search runs; entries that represent less work are replaced first.
+ * Each node stores (phi, delta) for its own side to move: phi is the proof
+ * number of the mover's goal and delta its disproof number. The root side aims
+ * to win; the other side aims for anything else, so a draw counts against the
+ * root side.
+ */
+final class ProofNumberSearch {
+    /** Outcome of a solve, for the side to move at the root. */
+    enum Result {
+        WIN, NO_WIN, UNKNOWN
+    }
+
+    /** Node budget for a quick check before a normal search. */
+    static final long QUICK_NODES = 50_000;
+
+    private static final int INFINITY = Integer.MAX_VALUE / 2;
+    private static final int WAYS = 4;
+
+    private static final long ATTACKER_SALT = 0x5DEECE66DL;
+    private static final long DEFENDER_SALT = 0x2545F4914F6CDD1DL;
+
+    final Geometry geometry;
+    private final long salt;
+
+    // Node table: 4-way buckets of key, phi, delta and subtree work
+    private final long[] keys;
+    private final int[] phis;
+    private final int[] deltas;
+    private final long[] works;
+    private final int bucketMask;
+
+    private long nodes;
+    private long nodeLimit;
+    private long deadline;
+    private BooleanSupplier stopped;
+    private boolean aborted;
+    private int winningMove = -1;
+    private int provenMove = -1;
+
+    /**
+     * Create a solver for the given board.
+     *
+     * @param geometry     The board layout and winning lines.
+     * @param tableEntries Node table capacity, rounded down to a power of two.
+     */
+    ProofNumberSearch(Geometry geometry, int tableEntries) {
+        this.geometry = geometry;
+        this.salt = TranspositionTable.mix(geometry.toString().hashCode());
+
+        int entries = Math.max(WAYS, Integer.highestOneBit(tableEntries));
+        keys = new long[entries];
+        phis = new int[entries];
+        deltas = new int[entries];
+        works = new long[entries];
+        bucketMask = entries / WAYS - 1;
+    }
+
+    /**
+     * Try to prove a forced win for the side to move.
+     *
+     * @param mine     Stones of the side to move.
+     * @param theirs   Stones of the opponent.
+     * @param maxNodes Node budget.
+     * @return WIN if proven, NO_WIN if disproven, UNKNOWN if the budget ran out.
+     */
+    Result solve(long mine, long theirs, long maxNodes) {
+        return solve(mine, theirs, maxNodes, Long.MAX_VALUE, () -> false);
+    }
+
+    /**
+     * Try to prove a forced win for the side to move, giving up at a deadline or
+     * when asked to stop, so the solve can share a move's time budget.
+     *
+     * @param mine     Stones of the side to move.
+     * @param theirs   Stones of the opponent.
+     * @param maxNodes Node budget.
+     * @param deadline {@link System#nanoTime} at which to give up, or {@code Long.MAX_VALUE} for none.
+     * @param stopped  Polled during the solve; returning true ends it.
+     * @return WIN if proven, NO_WIN if disproven, UNKNOWN if the budget ran out.
+     */
+    Result solve(long mine, long theirs, long maxNodes, long deadline, BooleanSupplier stopped) {
+        nodes = 0;
+        nodeLimit = maxNodes;
+        this.deadline = deadline;
+        this.stopped = stopped;
+        aborted = false;
+        winningMove = -1;
+
+        long empty = geometry.full & ~(mine | theirs);
+        long wins = geometry.winningCells(mine, theirs) & empty;
+        if (wins != 0) {
+            winningMove = Long.numberOfTrailingZeros(wins);
+            return Result.WIN;
+        }
+
+        long root = mid(mine, theirs, true, INFINITY, INFINITY);
+        int phi = (int) (root >>> 32);
+        int delta = (int) root;
+        if (phi == 0) {
+            winningMove = provenMove; // The root is the last node to finish
+            return Result.WIN;
+        }
+        return delta == 0 ? Result.NO_WIN : Result.UNKNOWN;
+    }
+
+    /**
+     * @return The move that keeps the forced win after a WIN result, else -1.
+     */
+    int getWinningMove() {
+        return winningMove;
+    }
+
+    /**
+     * @return Nodes expanded by the last solve.
+     */
+    long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Multiple iterative deepening: expand the node until its phi or delta reaches
+     * the given thresholds.
+     *
+     * @param attacker True if the side to move is the side trying to win.
+     * @return The node's {@code (phi << 32) | delta}.
+     */
+    private long mid(long mine, long theirs, boolean attacker, int phiThreshold, int deltaThreshold) {
+        long start = nodes++;
+        // Each node scans all of its children, so the clock is cheap to read every time
+        if (nodes >= nodeLimit || System.nanoTime() > deadline || stopped.getAsBoolean()) {
+            aborted = true;
+        }
+
+        long terminal = evaluate(mine, theirs, attacker);
+        if (terminal != 0) {
+            return terminal;
+        }
+
+        // Only the forced block is worth trying against a single threat
+        long empty = geometry.full & ~(mine | theirs);
+        long threats = geometry.winningCells(theirs, mine) & empty;
+        long candidates = threats != 0 ? threats : empty;
+
+        int count = Long.bitCount(candidates);
+        int[] moves = new int[count];
+        int[] childPhi = new int[count];
+        int[] childDelta = new int[count];
+        int index = 0;
+        for (long rest = candidates; rest != 0; rest &= rest - 1) {
+            int move = Long.numberOfTrailingZeros(rest);
+            long childMine = theirs;
+            long childTheirs = mine | (1L << move);
+            moves[index] = move;
+            long child = lookup(key(childMine, childTheirs, !attacker));
+            if (child == -1) {
+                child = evaluateChild(childTheirs, childMine, empty & ~(1L << move), move, !attacker);
+            }
+            childPhi[index] = (int) (child >>> 32);
+            childDelta[index] = (int) child;
+            index++;
+        }
+
+        long key = key(mine, theirs, attacker);
+        int phi;
+        int delta;
+        int best;
+        while (true) {
+            // phi is the smallest child delta, delta the sum of child phis
+            phi = INFINITY;
+            delta = 0;
+            best = -1;
+            int secondDelta = INFINITY;
+            for (int i = 0; i < count; i++) {
+                if (childDelta[i] < phi) {
+                    secondDelta = phi;
+                    phi = childDelta[i];
+                    best = i;
+                } else if (childDelta[i] < secondDelta) {
+                    secondDelta = childDelta[i];
+                }
+                delta = Math.min(INFINITY, delta + childPhi[i]);
+            }
+
+            if (phi >= phiThreshold || delta >= deltaThreshold || aborted) {
+                break;
+            }
+
+            int childPhiThreshold = Math.min(INFINITY, deltaThreshold - delta + childPhi[best]);
+            int childDeltaThreshold = Math.min(phiThreshold, secondDelta + 1);
+            long child = mid(theirs, mine | (1L << moves[best]), !attacker, childPhiThreshold, childDeltaThreshold);
+            childPhi[best] = (int) (child >>> 32);
+            childDelta[best] = (int) child;
+        }
+
+        if (phi == 0) {
+            provenMove = moves[best];
+        }
+        store(key, phi, delta, nodes - start);
+        return pack(phi, delta);
+    }
+
+    /**
+     * Recognise positions whose outcome is already known.
+     *
+     * @return Packed (phi, delta) for a decided position, or 0 if it is open.
+     */
+    private long evaluate(long mine, long theirs, boolean attacker) {
+        long empty = geometry.full & ~(mine | theirs);
+        if (empty == 0 || geometry.isWin(theirs)) {
+            // A draw is the defender's goal and the attacker's failure
+            return attacker || geometry.isWin(theirs) ? pack(INFINITY, 0) : pack(0, INFINITY);
+        }
+        if ((geometry.winningCells(mine, theirs) & empty) != 0) {
+            return pack(0, INFINITY);
+        }
+        if (Long.bitCount(geometry.winningCells(theirs, mine) & empty) > 1) {
+            return pack(INFINITY, 0);
+        }
+        return 0;
+    }
+
+    /**
+     * Cheap version of {@link #evaluate} for a fresh child of an open node. The
+     * parent had no win in one and any single threat against it was blocked,
+     * so only the lines through the new stone need checking.
+     *
+     * @param mover    Stones of the player who just moved, including the new stone.
+     * @param opponent Stones of the child's side to move.
+     * @param empty    Empty cells of the child.
+     * @param move     The cell just played.
+     * @param attacker True if the child's side to move is the side trying to win.
+     * @return Packed (phi, delta) for the child's side to move.
+     */
+    private long evaluateChild(long mover, long opponent, long empty, int move, boolean attacker) {
+        if (empty == 0) {
+            return attacker ? pack(INFINITY, 0) : pack(0, INFINITY);
+        }
+        if (Long.bitCount(geometry.winningCellsThrough(mover, opponent, move) & empty) > 1) {
+            return pack(INFINITY, 0);
+        }
+        return pack(1, 1);
+    }
+
+    private long key(long mine, long theirs, boolean attacker) {
+        return TranspositionTable.hash(mine, theirs) ^ salt ^ (attacker ? ATTACKER_SALT : DEFENDER_SALT);
+    }
+
+    private static long pack(int phi, int delta) {
+        return ((long) phi << 32) | (delta & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @return The stored (phi, delta), or -1 if the node is not in the table.
+     */
+    private long lookup(long key) {
+        int bucket = (int) (key & bucketMask) * WAYS;
+        for (int slot = bucket; slot < bucket + WAYS; slot++) {
+            if (keys[slot] == key && works[slot] != 0) {
+                return pack(phis[slot], deltas[slot]);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Store a node in its bucket, evicting the entry with the least work.
+     */
+    private void store(long key, int phi, int delta, long work) {
+        int bucket = (int) (key & bucketMask) * WAYS;
+        int victim = bucket;
+        for (int slot = bucket; slot < bucket + WAYS; slot++) {
+            if (keys[slot] == key || works[slot] == 0) {
+                victim = slot;
+                break;
+            }
+            if (works[slot] < works[victim]) {
+                victim = slot;
+            }
+        }
+        keys[victim] = key;
+        phis[victim] = phi;
+        deltas[victim] = delta;
+        works[victim] = Math.max(1, work);
+    }
+}
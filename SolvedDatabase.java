@@ -0,0 +1,318 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Complete win/loss/draw labels for every reachable position of a small variant,
+ * as produced by {@link RetrogradeSolver}, and the perfect-play AI built on them.
+ * Positions are grouped into levels by stone count. Each level holds its sorted
+ * canonical keys and one value byte per key, both in off-heap buffers.
+ */
+final class SolvedDatabase {
+    /** Outcome codes for the side to move, stored in the top two bits of a value. */
+    static final int LOSS = 1;
+    static final int DRAW = 2;
+    static final int WIN = 3;
+
+    /** Directory searched for solved databases, named after the variant. */
+    static final Path DIRECTORY = Paths.get("solved");
+
+    private static final int MAGIC = 0x54545444; // "TTTD"
+    private static final Map<String, CompletableFuture<SolvedDatabase>> CACHE = new ConcurrentHashMap<>();
+
+    final Geometry geometry;
+    private final Symmetries symmetries;
+    private final LongBuffer[] keys;
+    private final ByteBuffer[] values;
+
+    /**
+     * Wrap solved levels.
+     *
+     * @param geometry The solved board.
+     * @param keys     Sorted canonical keys of each level.
+     * @param values   Value bytes of each level, parallel to the keys.
+     */
+    SolvedDatabase(Geometry geometry, LongBuffer[] keys, ByteBuffer[] values) {
+        this.geometry = geometry;
+        this.symmetries = new Symmetries(geometry);
+        this.keys = keys;
+        this.values = values;
+    }
+
+    /**
+     * Encode an outcome and distance into a value byte.
+     *
+     * @param outcome  {@link #LOSS}, {@link #DRAW} or {@link #WIN}.
+     * @param distance Plies to the end of the game under perfect play.
+     * @return The value byte.
+     */
+    static byte encode(int outcome, int distance) {
+        return (byte) ((outcome << 6) | distance);
+    }
+
+    static int outcome(int value) {
+        return (value >> 6) & 3;
+    }
+
+    static int distance(int value) {
+        return value & 0x3F;
+    }
+
+    /**
+     * Look up a position.
+     *
+     * @param x Stones of the first player.
+     * @param o Stones of the second player.
+     * @return The value byte (0-255) for the side to move, or -1 if unreachable.
+     */
+    int probe(long x, long o) {
+        int level = Long.bitCount(x) + Long.bitCount(o);
+        int index = find(keys[level], symmetries.canonical(x, o));
+        return index < 0 ? -1 : values[level].get(index) & 0xFF;
+    }
+
+    /**
+     * Binary search for a key among sorted keys.
+     *
+     * @return The index of the key, or -1 if absent.
+     */
+    static int find(LongBuffer sorted, long key) {
+        int low = 0;
+        int high = sorted.limit() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long current = sorted.get(mid);
+            if (current < key) {
+                low = mid + 1;
+            } else if (current > key) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Perfect play: win as fast as possible, otherwise draw, otherwise lose as
+     * slowly as possible.
+     *
+     * @param x Stones of the first player.
+     * @param o Stones of the second player.
+     * @return The chosen cell index, or -1 if the game is over or the position
+     *         was not stored (only reachable by passing up a win in one).
+     */
+    int bestMove(long x, long o) {
+        boolean xToMove = Long.bitCount(x) == Long.bitCount(o);
+        long empty = geometry.full & ~(x | o);
+
+        // Pruned databases do not expand positions with a win in one, so take it directly
+        long wins = (xToMove ? geometry.winningCells(x, o) : geometry.winningCells(o, x)) & empty;
+        if (wins != 0) {
+            return Long.numberOfTrailingZeros(wins);
+        }
+        if (probe(x, o) < 0) {
+            return -1;
+        }
+        int bestMove = -1;
+        int bestRank = Integer.MIN_VALUE;
+
+        for (long rest = empty; rest != 0; rest &= rest - 1) {
+            int cell = Long.numberOfTrailingZeros(rest);
+            long nextX = xToMove ? x | (1L << cell) : x;
+            long nextO = xToMove ? o : o | (1L << cell);
+            int child = probe(nextX, nextO);
+            if (child < 0) {
+                continue;
+            }
+
+            // The child is labelled for the opponent, so its loss is our win
+            int rank;
+            switch (outcome(child)) {
+                case LOSS:
+                    rank = 2000 - distance(child);
+                    break;
+                case DRAW:
+                    rank = 1000;
+                    break;
+                default:
+                    rank = distance(child);
+                    break;
+            }
+            if (rank > bestRank) {
+                bestRank = rank;
+                bestMove = cell;
+            }
+        }
+        return bestMove;
+    }
+
+    /**
+     * @return Number of positions stored, up to symmetry.
+     */
+    long size() {
+        long total = 0;
+        for (LongBuffer level : keys) {
+            total += level.limit();
+        }
+        return total;
+    }
+
+    /**
+     * File name used for a variant, e.g. {@code 4x4-4.db}.
+     */
+    static Path fileFor(Geometry geometry) {
+        return DIRECTORY.resolve(geometry.toString().replace('/', '-') + ".db");
+    }
+
+    /**
+     * Database for the given board, loaded from {@link #DIRECTORY} if present and
+     * otherwise solved in memory. Boards above 16 cells are solved with win-in-one
+     * pruning to bound the work. Results are cached for the life of the process.
+     * The first caller for a board does the work outside the cache's locks and
+     * later callers wait for its result; a failed solve is not cached, so the
+     * next call tries again.
+     *
+     * @param geometry The board to look up.
+     * @return The solved database, or null if the board is too large to solve.
+     */
+    static SolvedDatabase forGeometry(Geometry geometry) {
+        if (geometry.cells > RetrogradeSolver.MAX_CELLS) {
+            return null;
+        }
+        String name = geometry.toString();
+        CompletableFuture<SolvedDatabase> pending = new CompletableFuture<>();
+        CompletableFuture<SolvedDatabase> existing = CACHE.putIfAbsent(name, pending);
+        if (existing != null) {
+            return existing.join();
+        }
+        try {
+            SolvedDatabase database = loadOrSolve(geometry);
+            pending.complete(database);
+            return database;
+        } catch (RuntimeException | Error ex) {
+            CACHE.remove(name, pending);
+            pending.completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    private static SolvedDatabase loadOrSolve(Geometry geometry) {
+        Path file = fileFor(geometry);
+        try {
+            if (Files.isReadable(file)) {
+                return load(file);
+            }
+        } catch (IOException ex) {
+            System.err.println("Could not read " + file + ", solving instead: " + ex.getMessage());
+        }
+        int threads = Runtime.getRuntime().availableProcessors();
+        return new RetrogradeSolver(geometry, threads, geometry.cells > 16).solve();
+    }
+
+    /**
+     * Whether {@link #forGeometry} would answer at once, without reading or solving.
+     *
+     * @param geometry The board to look up.
+     * @return True if the database is cached or the board is too large to solve.
+     */
+    static boolean isReady(Geometry geometry) {
+        if (geometry.cells > RetrogradeSolver.MAX_CELLS) {
+            return true;
+        }
+        CompletableFuture<SolvedDatabase> database = CACHE.get(geometry.toString());
+        return database != null && database.isDone();
+    }
+
+    /**
+     * Write the database to a file.
+     *
+     * @param file The output file; parent directories are created.
+     * @throws IOException If the file cannot be written.
+     */
+    void save(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            byte[] name = geometry.toString().getBytes(StandardCharsets.US_ASCII);
+            ByteBuffer header = ByteBuffer.allocate(12 + name.length + 4 * keys.length);
+            header.putInt(MAGIC).putInt(name.length).put(name).putInt(keys.length);
+            for (LongBuffer level : keys) {
+                header.putInt(level.limit());
+            }
+            writeFully(channel, header.flip());
+
+            for (int level = 0; level < keys.length; level++) {
+                ByteBuffer keyBytes = ByteBuffer.allocateDirect(keys[level].limit() * Long.BYTES);
+                keyBytes.asLongBuffer().put(keys[level].duplicate().rewind());
+                writeFully(channel, keyBytes);
+                writeFully(channel, values[level].duplicate().rewind());
+            }
+        }
+    }
+
+    /**
+     * Read a database written by {@link #save(Path)}.
+     *
+     * @param file The database file.
+     * @return The loaded database.
+     * @throws IOException If the file is missing or malformed.
+     */
+    static SolvedDatabase load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer prefix = readFully(channel, 8);
+            if (prefix.getInt() != MAGIC) {
+                throw new IOException(file + " is not a solved database");
+            }
+            String name = new String(readFully(channel, prefix.getInt()).array(),
+                    StandardCharsets.US_ASCII);
+            Geometry geometry = Geometry.parse(name);
+
+            int levelCount = readFully(channel, 4).getInt();
+            ByteBuffer counts = readFully(channel, 4 * levelCount);
+            LongBuffer[] keys = new LongBuffer[levelCount];
+            ByteBuffer[] values = new ByteBuffer[levelCount];
+            for (int level = 0; level < levelCount; level++) {
+                int count = counts.getInt();
+                ByteBuffer keyBytes = ByteBuffer.allocateDirect(count * Long.BYTES);
+                readInto(channel, keyBytes);
+                keys[level] = keyBytes.flip().asLongBuffer();
+                values[level] = ByteBuffer.allocateDirect(count);
+                readInto(channel, values[level]);
+                values[level].flip();
+            }
+            return new SolvedDatabase(geometry, keys, values);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        readInto(channel, buffer);
+        return buffer.flip();
+    }
+
+    private static void readInto(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Unexpected end of solved database");
+            }
+        }
+    }
+}
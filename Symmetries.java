@@ -0,0 +1,108 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Rotations and reflections of a board of up to 32 cells, used to fold
+ * symmetric positions onto one canonical key.
+ * A position is keyed as {@code (o << 32) | x}; each symmetry permutes the cells
+ * with byte-wise lookup tables, so mapping a 32-bit stone set costs four loads.
+ */
+final class Symmetries {
+    /** Per symmetry and input byte, the permuted mask of that byte's cells. */
+    private final long[][][] tables;
+
+    /**
+     * Build every symmetry of the given board.
+     *
+     * @param geometry The board, with at most 32 cells.
+     */
+    Symmetries(Geometry geometry) {
+        if (geometry.cells > 32) {
+            throw new IllegalArgumentException("Symmetry keys support at most 32 cells, not " + geometry.cells);
+        }
+
+        List<int[]> permutations = new ArrayList<>();
+        int[] size = {geometry.width, geometry.height, geometry.depth};
+        int[][] axisOrders = {{0, 1, 2}, {0, 2, 1}, {1, 0, 2}, {1, 2, 0}, {2, 0, 1}, {2, 1, 0}};
+
+        for (int[] axes : axisOrders) {
+            if (size[axes[0]] != size[0] || size[axes[1]] != size[1] || size[axes[2]] != size[2]) {
+                continue; // Axes of different lengths cannot be swapped
+            }
+            for (int flips = 0; flips < 8; flips++) {
+                int[] permutation = new int[geometry.cells];
+                for (int z = 0; z < geometry.depth; z++) {
+                    for (int y = 0; y < geometry.height; y++) {
+                        for (int x = 0; x < geometry.width; x++) {
+                            int[] from = {x, y, z};
+                            int[] to = new int[3];
+                            for (int axis = 0; axis < 3; axis++) {
+                                int value = from[axes[axis]];
+                                to[axis] = (flips & (1 << axis)) != 0 ? size[axis] - 1 - value : value;
+                            }
+                            permutation[geometry.index(x, y, z)] = geometry.index(to[0], to[1], to[2]);
+                        }
+                    }
+                }
+                if (permutations.stream().noneMatch(p -> Arrays.equals(p, permutation))) {
+                    permutations.add(permutation);
+                }
+            }
+        }
+
+        int count = permutations.size();
+        tables = new long[count][4][256];
+        for (int s = 0; s < count; s++) {
+            int[] permutation = permutations.get(s);
+            for (int chunk = 0; chunk < 4; chunk++) {
+                for (int bits = 0; bits < 256; bits++) {
+                    long mapped = 0;
+                    for (int bit = 0; bit < 8; bit++) {
+                        int cell = chunk * 8 + bit;
+                        if ((bits & (1 << bit)) != 0 && cell < geometry.cells) {
+                            mapped |= 1L << permutation[cell];
+                        }
+                    }
+                    tables[s][chunk][bits] = mapped;
+                }
+            }
+        }
+    }
+
+    /**
+     * Pack a position into a key.
+     *
+     * @param x Stones of the first player.
+     * @param o Stones of the second player.
+     * @return The key {@code (o << 32) | x}.
+     */
+    static long key(long x, long o) {
+        return (o << 32) | x;
+    }
+
+    /**
+     * Smallest key among all symmetric images of the position.
+     *
+     * @param x Stones of the first player.
+     * @param o Stones of the second player.
+     * @return The canonical key.
+     */
+    long canonical(long x, long o) {
+        long best = Long.MAX_VALUE;
+        for (long[][] table : tables) {
+            long image = (map(table, o) << 32) | map(table, x);
+            if (image < best) {
+                best = image;
+            }
+        }
+        return best;
+    }
+
+    private static long map(long[][] table, long stones) {
+        return table[0][(int) (stones & 0xFF)]
+                | table[1][(int) ((stones >>> 8) & 0xFF)]
+                | table[2][(int) ((stones >>> 16) & 0xFF)]
+                | table[3][(int) ((stones >>> 24) & 0xFF)];
+    }
+}
@@ -14,7 +14,7 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * Tic-Tac-Toe game with an integrated Main Frame UI, enhanced graphics,
@@ -30,9 +30,11 @@ public class TicTacToe implements ActionListener {
     private JPanel menuPanel;
     private JPanel setupPanel;
     private JPanel gamePanel;
+    private DashboardPanel dashboardPanel;
 
     // Menu Panel Components
     private JButton startButton;
+    private JButton dashboardButton;
     private JButton exitButton;
 
     // Setup Panel Components
@@ -41,13 +43,17 @@ public class TicTacToe implements ActionListener {
     private ButtonGroup modeGroup;
     private JLabel difficultyLabel;
     private JComboBox<String> difficultyComboBox;
+    private JComboBox<String> boardComboBox;
     private JTextField player1Field;
     private JTextField player2Field;
     private JButton setupStartButton;
     private JButton setupBackButton;
 
     // Game Panel Components
+    private JPanel boardPanel;
+    private JPanel cellBoardPanel;
     private JButton[] boardButtons;
+    private JButton[] cellButtons = new JButton[0];
     private JLabel statusLabel;
     private JButton gameExitButton;
 
@@ -56,18 +62,36 @@ public class TicTacToe implements ActionListener {
     private boolean vsComputer;
     private String player1Name;
     private String player2Name;
-    private int aiLevel; // 1: Easy, 2: Medium, 3: Hard
-    private Random random;
+    private int aiLevel; // 1: Easy, 2: Medium, 3: Hard, 4: Perfect
+    private SplittableRandom seedSource; // splits off one generator per game
+    private SplittableRandom random; // the current game's generator
+
+    // Bitboard variants (every board but the classic 3x3), one bitboard per player
+    private Geometry boardGeometry = Geometry.CLASSIC;
+    private long stonesX;
+    private long stonesO;
+    private int gameGeneration; // bumped on reset so stale AI results are discarded
+    private static final long SEARCH_THINK_MILLIS = 1000;
+    private TranspositionTable searchTable; // shared by every search thread, created on first use
+    private ProofNumberSearch proofSearch; // kept between moves so earlier proofs are reused
+
+    private static final String[] BOARD_NAMES = {
+            "Classic 3x3", "4x4 (3 in a row)", "4x4 (4 in a row)", "3D 3x3x3", "3D 4x4x4 (Qubic)"};
+    private static final Geometry[] BOARD_GEOMETRIES = {
+            Geometry.CLASSIC, new Geometry(4, 4, 1, 3), new Geometry(4, 4, 1, 4),
+            new Geometry(3, 3, 3, 3), Geometry.QUBIC};
 
     /**
      * Constructor to initialize the game.
      */
     public TicTacToe() {
-        random = new Random();
+        seedSource = new SplittableRandom(randomSeed());
+        random = seedSource.split();
         initializeFrame();
         initializeMenuPanel();
         initializeSetupPanel();
         initializeGamePanel();
+        initializeDashboardPanel();
         frame.setVisible(true);
     }
 
@@ -117,6 +141,18 @@ public class TicTacToe implements ActionListener {
         gbc.gridy = 1;
         menuPanel.add(startButton, gbc);
 
+        // AI Dashboard Button
+        dashboardButton = new JButton("AI Dashboard");
+        dashboardButton.setFont(new Font("Arial", Font.BOLD, 24));
+        dashboardButton.setFocusPainted(false);
+        dashboardButton.setBackground(new Color(70, 130, 180)); // Steel Blue
+        dashboardButton.setForeground(Color.WHITE);
+        dashboardButton.setPreferredSize(new Dimension(200, 60));
+        dashboardButton.addActionListener(this);
+
+        gbc.gridy = 2;
+        menuPanel.add(dashboardButton, gbc);
+
         // Exit Button
         exitButton = new JButton("Exit");
         exitButton.setFont(new Font("Arial", Font.BOLD, 24));
@@ -126,7 +162,7 @@ public class TicTacToe implements ActionListener {
         exitButton.setPreferredSize(new Dimension(200, 60));
         exitButton.addActionListener(this);
 
-        gbc.gridy = 2;
+        gbc.gridy = 3;
         menuPanel.add(exitButton, gbc);
 
         mainPanel.add(menuPanel, "Menu");
@@ -141,7 +177,7 @@ public class TicTacToe implements ActionListener {
         setupPanel.setLayout(new GridBagLayout());
 
         GridBagConstraints gbc = new GridBagConstraints();
-        gbc.insets = new Insets(15, 15, 15, 15);
+        gbc.insets = new Insets(10, 15, 10, 15); // Fourteen rows must fit the 800-pixel frame
         gbc.fill = GridBagConstraints.HORIZONTAL;
 
         // Title Label
@@ -183,37 +219,48 @@ public class TicTacToe implements ActionListener {
         twoPlayerRadio.addActionListener(e -> toggleDifficultySelection());
         vsComputerRadio.addActionListener(e -> toggleDifficultySelection());
 
-        // Difficulty Selection
+        // Board Selection
         gbc.gridy = 4;
+        JLabel boardLabel = new JLabel("Select Board:");
+        boardLabel.setFont(new Font("Arial", Font.BOLD, 20));
+        setupPanel.add(boardLabel, gbc);
+
+        gbc.gridy = 5;
+        boardComboBox = new JComboBox<>(BOARD_NAMES);
+        boardComboBox.setFont(new Font("Arial", Font.PLAIN, 18));
+        setupPanel.add(boardComboBox, gbc);
+
+        // Difficulty Selection
+        gbc.gridy = 6;
         difficultyLabel = new JLabel("Select AI Difficulty:");
         difficultyLabel.setFont(new Font("Arial", Font.BOLD, 20));
         difficultyLabel.setVisible(false); // Initially hidden
         setupPanel.add(difficultyLabel, gbc);
 
-        gbc.gridy = 5;
-        String[] difficulties = {"Easy", "Medium", "Hard"};
+        gbc.gridy = 7;
+        String[] difficulties = {"Easy", "Medium", "Hard", "Perfect"};
         difficultyComboBox = new JComboBox<>(difficulties);
         difficultyComboBox.setFont(new Font("Arial", Font.PLAIN, 18));
         difficultyComboBox.setVisible(false); // Initially hidden
         setupPanel.add(difficultyComboBox, gbc);
 
         // Player Names
-        gbc.gridy = 6;
+        gbc.gridy = 8;
         JLabel player1Label = new JLabel("Player 1 (X) Name:");
         player1Label.setFont(new Font("Arial", Font.BOLD, 20));
         setupPanel.add(player1Label, gbc);
 
-        gbc.gridy = 7;
+        gbc.gridy = 9;
         player1Field = new JTextField("Player 1");
         player1Field.setFont(new Font("Arial", Font.PLAIN, 18));
         setupPanel.add(player1Field, gbc);
 
-        gbc.gridy = 8;
+        gbc.gridy = 10;
         JLabel player2Label = new JLabel("Player 2 (O) Name:");
         player2Label.setFont(new Font("Arial", Font.BOLD, 20));
         setupPanel.add(player2Label, gbc);
 
-        gbc.gridy = 9;
+        gbc.gridy = 11;
         player2Field = new JTextField("Player 2");
         player2Field.setFont(new Font("Arial", Font.PLAIN, 18));
         setupPanel.add(player2Field, gbc);
@@ -222,7 +269,7 @@ public class TicTacToe implements ActionListener {
         player2Field.setEnabled(true); // Enable by default for two-player mode
 
         // Buttons
-        gbc.gridy = 10;
+        gbc.gridy = 12;
         setupStartButton = new JButton("Start");
         setupStartButton.setFont(new Font("Arial", Font.BOLD, 20));
         setupStartButton.setFocusPainted(false);
@@ -232,7 +279,7 @@ public class TicTacToe implements ActionListener {
         setupStartButton.addActionListener(this);
         setupPanel.add(setupStartButton, gbc);
 
-        gbc.gridy = 11;
+        gbc.gridy = 13;
         setupBackButton = new JButton("Back");
         setupBackButton.setFont(new Font("Arial", Font.BOLD, 20));
         setupBackButton.setFocusPainted(false);
@@ -283,7 +330,7 @@ public class TicTacToe implements ActionListener {
         gamePanel.add(statusLabel, BorderLayout.NORTH);
 
         // Game Board Panel
-        JPanel boardPanel = new JPanel();
+        boardPanel = new JPanel();
         boardPanel.setLayout(new GridLayout(3, 3, 10, 10));
         boardPanel.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
         boardPanel.setBackground(new Color(245, 245, 245)); // White Smoke
@@ -320,6 +367,78 @@ public class TicTacToe implements ActionListener {
         mainPanel.add(gamePanel, "Game");
     }
 
+    /**
+     * Initialize the AI Dashboard Panel, which runs many computer-vs-computer games at once.
+     */
+    private void initializeDashboardPanel() {
+        dashboardPanel = new DashboardPanel(BOARD_NAMES, BOARD_GEOMETRIES,
+                () -> cardLayout.show(mainPanel, "Menu"));
+        mainPanel.add(dashboardPanel, "Dashboard");
+    }
+
+    /**
+     * Build the board for a bitboard variant: a single grid for flat boards, or
+     * one grid per layer for 3D boards (e.g. four 4x4 layers for Qubic).
+     * Swapped in for the classic board when such a variant is selected.
+     *
+     * @param geometry The selected board.
+     */
+    private void buildCellBoardPanel(Geometry geometry) {
+        int layerColumns = (int) Math.ceil(Math.sqrt(geometry.depth));
+        int layerRows = (geometry.depth + layerColumns - 1) / layerColumns;
+        cellBoardPanel = new JPanel();
+        cellBoardPanel.setLayout(new GridLayout(layerRows, layerColumns, 15, 15));
+        cellBoardPanel.setBorder(BorderFactory.createEmptyBorder(10, 20, 10, 20));
+        cellBoardPanel.setBackground(new Color(245, 245, 245)); // White Smoke
+
+        cellButtons = new JButton[geometry.cells];
+        Font buttonFont = new Font("Arial", Font.BOLD, geometry.depth > 1 ? 24 : 48);
+        for (int z = 0; z < geometry.depth; z++) {
+            JPanel layerPanel = new JPanel();
+            layerPanel.setLayout(new GridLayout(geometry.height, geometry.width, 4, 4));
+            if (geometry.depth > 1) {
+                layerPanel.setBorder(BorderFactory.createTitledBorder("Layer " + (z + 1)));
+            }
+            layerPanel.setBackground(new Color(245, 245, 245)); // White Smoke
+
+            for (int y = 0; y < geometry.height; y++) {
+                for (int x = 0; x < geometry.width; x++) {
+                    int cell = geometry.index(x, y, z);
+                    cellButtons[cell] = new JButton("");
+                    cellButtons[cell].setFont(buttonFont);
+                    cellButtons[cell].setFocusPainted(false);
+                    cellButtons[cell].setMargin(new Insets(0, 0, 0, 0));
+                    cellButtons[cell].setBackground(new Color(255, 255, 255)); // White
+                    cellButtons[cell].setForeground(Color.BLACK);
+                    cellButtons[cell].addActionListener(this);
+                    layerPanel.add(cellButtons[cell]);
+                }
+            }
+            cellBoardPanel.add(layerPanel);
+        }
+    }
+
+    /**
+     * Show the board matching the selected variant in the game panel.
+     */
+    private void showSelectedBoard() {
+        gamePanel.remove(boardPanel);
+        if (cellBoardPanel != null) {
+            gamePanel.remove(cellBoardPanel);
+            cellBoardPanel = null;
+        }
+
+        if (boardGeometry == Geometry.CLASSIC) {
+            cellButtons = new JButton[0];
+            gamePanel.add(boardPanel, BorderLayout.CENTER);
+        } else {
+            buildCellBoardPanel(boardGeometry);
+            gamePanel.add(cellBoardPanel, BorderLayout.CENTER);
+        }
+        gamePanel.revalidate();
+        gamePanel.repaint();
+    }
+
     /**
      * Start the game by configuring settings and displaying the game panel.
      */
@@ -341,11 +460,18 @@ public class TicTacToe implements ActionListener {
         }
 
         // Initialize game state
+        showSelectedBoard();
         resetGame();
 
         setupGameStatus();
         cardLayout.show(mainPanel, "Game");
 
+        // Perfect play needs the solved database: build it now, not on the computer's first turn
+        if (vsComputer && aiLevel == 4 && boardGeometry != Geometry.CLASSIC
+                && !SolvedDatabase.isReady(boardGeometry)) {
+            prepareSolvedDatabase();
+        }
+
         // If computer starts first
         if (vsComputer && !playerTurn) {
             makeComputerMove();
@@ -384,12 +510,15 @@ public class TicTacToe implements ActionListener {
         // Handle Main Menu Buttons
         if (source == startButton) {
             cardLayout.show(mainPanel, "Setup");
+        } else if (source == dashboardButton) {
+            cardLayout.show(mainPanel, "Dashboard");
         } else if (source == exitButton) {
             exitApplication();
         }
         // Handle Setup Panel Buttons
         else if (source == setupStartButton) {
             vsComputer = vsComputerRadio.isSelected();
+            boardGeometry = BOARD_GEOMETRIES[boardComboBox.getSelectedIndex()];
             if (vsComputer) {
                 String selectedDifficulty = (String) difficultyComboBox.getSelectedItem();
                 switch (selectedDifficulty) {
@@ -402,6 +531,9 @@ public class TicTacToe implements ActionListener {
                     case "Hard":
                         aiLevel = 3;
                         break;
+                    case "Perfect":
+                        aiLevel = 4;
+                        break;
                     default:
                         aiLevel = 1;
                 }
@@ -423,6 +555,11 @@ public class TicTacToe implements ActionListener {
         else {
             JButton clickedButton = (JButton) source;
 
+            if (boardGeometry != Geometry.CLASSIC) {
+                handleCellClick(clickedButton);
+                return;
+            }
+
             if (!clickedButton.getText().equals("")) {
                 return; // Ignore if button already clicked
             }
@@ -457,6 +594,11 @@ public class TicTacToe implements ActionListener {
      * Computer makes its move based on the selected difficulty level.
      */
     private void makeComputerMove() {
+        if (boardGeometry != Geometry.CLASSIC) {
+            makeCellComputerMove();
+            return;
+        }
+
         SwingUtilities.invokeLater(() -> {
             try {
                 Thread.sleep(500); // Pause for better UX
@@ -472,6 +614,9 @@ public class TicTacToe implements ActionListener {
                 case 2:
                     move = getMediumMove();
                     break;
+                case 4:
+                    move = getPerfectMove();
+                    break;
                 case 3:
                 default:
                     move = getBestMove();
@@ -554,6 +699,25 @@ public class TicTacToe implements ActionListener {
         return bestMove;
     }
 
+    /**
+     * AI Level 4: Perfect - Look the move up in the solved database.
+     *
+     * @return The index of the chosen move.
+     */
+    private int getPerfectMove() {
+        long x = 0;
+        long o = 0;
+        for (int i = 0; i < 9; i++) {
+            if (boardButtons[i].getText().equals("X")) {
+                x |= 1L << i;
+            } else if (boardButtons[i].getText().equals("O")) {
+                o |= 1L << i;
+            }
+        }
+        int move = SolvedDatabase.forGeometry(Geometry.CLASSIC).bestMove(x, o);
+        return move != -1 ? move : getBestMove();
+    }
+
     /**
      * Minimax algorithm with alpha-beta pruning.
      *
@@ -693,6 +857,271 @@ public class TicTacToe implements ActionListener {
         return false;
     }
 
+    /**
+     * Handle a click on a cell of a bitboard variant.
+     *
+     * @param clickedButton The cell button that was clicked.
+     */
+    private void handleCellClick(JButton clickedButton) {
+        int cell = -1;
+        for (int i = 0; i < cellButtons.length; i++) {
+            if (cellButtons[i] == clickedButton) {
+                cell = i;
+                break;
+            }
+        }
+        if (cell == -1 || ((stonesX | stonesO) & (1L << cell)) != 0) {
+            return; // Ignore if cell already taken
+        }
+
+        if (playerTurn || !vsComputer) {
+            placeStone(cell, playerTurn);
+            playerTurn = !playerTurn; // Toggle turn
+            updateStatusLabel();
+
+            if (checkForCellWinner()) {
+                return;
+            }
+
+            if (vsComputer && !playerTurn) {
+                makeCellComputerMove();
+            }
+        }
+    }
+
+    /**
+     * Place a stone on the bitboard and update its button.
+     *
+     * @param cell The cell index.
+     * @param isX  True to place X, false to place O.
+     */
+    private void placeStone(int cell, boolean isX) {
+        if (isX) {
+            stonesX |= 1L << cell;
+            cellButtons[cell].setForeground(new Color(30, 144, 255)); // Dodger Blue for X
+            cellButtons[cell].setText("X");
+        } else {
+            stonesO |= 1L << cell;
+            cellButtons[cell].setForeground(new Color(220, 20, 60)); // Crimson for O
+            cellButtons[cell].setText("O");
+        }
+        cellButtons[cell].setEnabled(false);
+    }
+
+    /**
+     * Computer makes its move on a bitboard variant. The search runs on a worker
+     * thread so the board stays responsive during its one-second budget.
+     */
+    private void makeCellComputerMove() {
+        final int generation = gameGeneration;
+        final Geometry geometry = boardGeometry;
+        final long mine = stonesO;
+        final long theirs = stonesX;
+        final SplittableRandom gameRandom = random;
+
+        Thread worker = new Thread(() -> {
+            int move;
+            switch (aiLevel) {
+                case 1:
+                    pause();
+                    move = getRandomCellMove(geometry, mine, theirs, gameRandom);
+                    break;
+                case 2:
+                    pause();
+                    move = getMediumCellMove(geometry, mine, theirs, gameRandom);
+                    break;
+                case 4:
+                    move = getPerfectCellMove(geometry, mine, theirs);
+                    break;
+                case 3:
+                default:
+                    move = getHardCellMove(geometry, mine, theirs);
+                    break;
+            }
+
+            SwingUtilities.invokeLater(() -> {
+                if (generation != gameGeneration || move == -1) {
+                    return; // Game was reset while the computer was thinking
+                }
+                placeStone(move, false);
+                playerTurn = true;
+                updateStatusLabel();
+                checkForCellWinner();
+            });
+        }, "Computer Player");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Create a search for the given board on all cores, sharing one off-heap
+     * transposition table. Its size in MB can be set with -Dtictactoe.hash.
+     *
+     * @param geometry The board to search.
+     * @return A new search.
+     */
+    private synchronized BitboardSearch newSearch(Geometry geometry) {
+        if (searchTable == null) {
+            searchTable = new TranspositionTable(Integer.getInteger("tictactoe.hash", 64));
+        }
+        BitboardSearch search = new BitboardSearch(geometry, searchTable);
+        search.setThreads(Runtime.getRuntime().availableProcessors());
+        return search;
+    }
+
+    /**
+     * Load or solve the database for the current board on a worker thread. The
+     * board stays disabled and the status shows the elapsed time until it is ready.
+     * If the solve fails, for example for lack of memory, the computer plays at
+     * Hard level instead.
+     */
+    private void prepareSolvedDatabase() {
+        final int generation = gameGeneration;
+        final Geometry geometry = boardGeometry;
+        final long start = System.nanoTime();
+        for (JButton button : cellButtons) {
+            button.setEnabled(false);
+        }
+
+        Timer progress = new Timer(1000, e -> statusLabel.setText("Solving " + geometry
+                + " for perfect play... " + (System.nanoTime() - start) / 1_000_000_000L + " s"));
+        progress.setInitialDelay(0);
+        progress.start();
+
+        Thread worker = new Thread(() -> {
+            Throwable failure = null;
+            try {
+                SolvedDatabase.forGeometry(geometry);
+            } catch (Throwable ex) {
+                failure = ex;
+            }
+            final Throwable error = failure;
+            SwingUtilities.invokeLater(() -> {
+                progress.stop();
+                if (generation != gameGeneration) {
+                    return; // Game was reset while solving
+                }
+                for (JButton button : cellButtons) {
+                    button.setEnabled(true);
+                }
+                updateStatusLabel();
+                if (error != null) {
+                    aiLevel = 3;
+                    JOptionPane.showMessageDialog(frame, "Could not solve " + geometry + " for perfect play:\n"
+                                    + error + "\nThe computer will play at Hard level.",
+                            "Perfect Play Unavailable", JOptionPane.WARNING_MESSAGE);
+                }
+            });
+        }, "Solver");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Proof-number solver for the given board, kept while the board stays the same.
+     * It is not thread-safe: callers hold its lock across a solve and the
+     * reading of its result.
+     *
+     * @param geometry The board to solve.
+     * @return The solver.
+     */
+    private synchronized ProofNumberSearch proofSearchFor(Geometry geometry) {
+        if (proofSearch == null || proofSearch.geometry != geometry) {
+            proofSearch = new ProofNumberSearch(geometry, 1 << 20);
+        }
+        return proofSearch;
+    }
+
+    /**
+     * Pause the calling thread briefly for better UX.
+     */
+    private static void pause() {
+        try {
+            Thread.sleep(500);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Bitboard Level 1: Easy - Random empty cell.
+     *
+     * @return The chosen cell index, or -1 if the board is full.
+     */
+    private int getRandomCellMove(Geometry geometry, long mine, long theirs, SplittableRandom gameRandom) {
+        return BitboardSearch.randomMove(geometry, mine, theirs, gameRandom);
+    }
+
+    /**
+     * Bitboard Level 2: Medium - Win if possible, block the player's win, else random.
+     *
+     * @return The chosen cell index, or -1 if the board is full.
+     */
+    private int getMediumCellMove(Geometry geometry, long mine, long theirs, SplittableRandom gameRandom) {
+        return BitboardSearch.winOrBlockMove(geometry, mine, theirs, gameRandom);
+    }
+
+    /**
+     * Bitboard Level 3: Hard - Play a forced win at once if the proof-number solver
+     * finds one quickly, otherwise search for the rest of the time budget.
+     *
+     * @return The chosen cell index, or -1 if the board is full.
+     */
+    private int getHardCellMove(Geometry geometry, long mine, long theirs) {
+        long deadline = System.nanoTime() + SEARCH_THINK_MILLIS * 1_000_000L;
+        ProofNumberSearch solver = proofSearchFor(geometry);
+        synchronized (solver) { // A worker from a reset game may still be using it
+            if (solver.solve(mine, theirs, ProofNumberSearch.QUICK_NODES, deadline, () -> false)
+                    == ProofNumberSearch.Result.WIN) {
+                return solver.getWinningMove();
+            }
+        }
+        // The solve, and any wait for its lock, comes out of the same budget
+        long remaining = Math.max(0, (deadline - System.nanoTime()) / 1_000_000L);
+        return newSearch(geometry).bestMove(mine, theirs, remaining);
+    }
+
+    /**
+     * Bitboard Level 4: Perfect - Look the move up in the solved database, falling
+     * back to Hard on boards too large to solve or positions it does not store.
+     *
+     * @return The chosen cell index, or -1 if the board is full.
+     */
+    private int getPerfectCellMove(Geometry geometry, long mine, long theirs) {
+        SolvedDatabase database = SolvedDatabase.forGeometry(geometry);
+        int move = database != null ? database.bestMove(theirs, mine) : -1; // Computer plays O
+        if (move == -1) {
+            move = getHardCellMove(geometry, mine, theirs);
+        }
+        return move;
+    }
+
+    /**
+     * Check for a winner or draw on a bitboard variant after each move.
+     *
+     * @return True if the game has concluded, otherwise false.
+     */
+    private boolean checkForCellWinner() {
+        long xLine = boardGeometry.winningLine(stonesX);
+        long oLine = boardGeometry.winningLine(stonesO);
+        long line = xLine != 0 ? xLine : oLine;
+
+        if (line != 0) {
+            for (int cell = 0; cell < cellButtons.length; cell++) {
+                if ((line & (1L << cell)) != 0) {
+                    cellButtons[cell].setBackground(new Color(144, 238, 144)); // Light Green
+                }
+            }
+            showResult((xLine != 0 ? player1Name : player2Name) + " wins!");
+            return true;
+        } else if ((stonesX | stonesO) == boardGeometry.full) {
+            showResult("It's a draw!");
+            return true;
+        }
+
+        return false;
+    }
+
     /**
      * Highlight the winning combination on the board.
      *
@@ -799,11 +1228,33 @@ public class TicTacToe implements ActionListener {
             button.setForeground(Color.BLACK);
         }
 
+        for (JButton button : cellButtons) {
+            button.setText("");
+            button.setEnabled(true);
+            button.setBackground(new Color(255, 255, 255)); // White
+            button.setForeground(Color.BLACK);
+        }
+        stonesX = 0;
+        stonesO = 0;
+
         // Reset game state
+        random = seedSource.split(); // game n always gets the same generator for a given seed
+        gameGeneration++;
         playerTurn = true;
         updateStatusLabel();
     }
 
+    /**
+     * Seed for the AI's random choices: the value of -Dtictactoe.seed when set, so a
+     * run can be replayed exactly, otherwise a fresh one.
+     *
+     * @return The seed.
+     */
+    static long randomSeed() {
+        Long seed = Long.getLong("tictactoe.seed");
+        return seed != null ? seed : new SplittableRandom().nextLong();
+    }
+
     /**
      * Exit the application gracefully.
      */
@@ -816,11 +1267,16 @@ public class TicTacToe implements ActionListener {
     }
 
     /**
-     * Main method to run the game.
+     * Main method to run the game, or the text-protocol engine with {@code --engine}.
      *
-     * @param args Command-line arguments (not used).
+     * @param args Command-line arguments.
      */
-    public static void main(String[] args) {
+    public static void main(String[] args) throws java.io.IOException {
+        if (args.length > 0 && args[0].equals("--engine")) {
+            Engine.main(args);
+            return;
+        }
+
         // Ensure GUI is created on the Event Dispatch Thread
         SwingUtilities.invokeLater(TicTacToe::new);
     }
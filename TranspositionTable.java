@@ -0,0 +1,206 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Off-heap transposition table shared by every search thread, sized in megabytes.
+ * Each 16-byte entry stores {@code key ^ data} next to {@code data}. Writers store
+ * both words without locking; a reader only accepts an entry when the two words
+ * XOR back to its key, so an entry torn by a concurrent write reads as a miss.
+ * Memory is allocated as direct buffers of up to 1 GB each, so tables of several
+ * gigabytes live outside the heap and never cause GC pauses.
+ * Direct memory is capped by {@code -XX:MaxDirectMemorySize}, which defaults to
+ * the maximum heap size, so a table larger than the heap needs that flag, e.g.
+ * {@code java -XX:MaxDirectMemorySize=4g Engine} for {@code hash 2048}.
+ */
+final class TranspositionTable {
+    /** Bound types stored with a score. Never 0, so an empty slot never verifies. */
+    static final int EXACT = 1;
+    static final int LOWER = 2;
+    static final int UPPER = 3;
+
+    private static final int ENTRY_BYTES = 16;
+    private static final int CHUNK_SHIFT = 26; // 2^26 entries = 1 GB per buffer
+    private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+
+    /** Atomic 8-byte access to direct buffers, so single words can never tear. */
+    private static final VarHandle LONGS =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final ByteBuffer[] chunks;
+    private final long mask;
+
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder collisions = new LongAdder();
+
+    /**
+     * Allocate a table of at most the given size, rounded down to a power of two
+     * number of entries.
+     *
+     * @param megabytes Table size in megabytes (at least 1).
+     */
+    TranspositionTable(long megabytes) {
+        long entries = Long.highestOneBit(Math.max(1, megabytes) * 1024 * 1024 / ENTRY_BYTES);
+        mask = entries - 1;
+
+        int chunkCount = (int) ((entries + CHUNK_MASK) >>> CHUNK_SHIFT);
+        chunks = new ByteBuffer[chunkCount];
+        for (int i = 0; i < chunkCount; i++) {
+            long chunkEntries = Math.min(entries - ((long) i << CHUNK_SHIFT), 1L << CHUNK_SHIFT);
+            chunks[i] = ByteBuffer.allocateDirect((int) (chunkEntries * ENTRY_BYTES)).order(ByteOrder.nativeOrder());
+        }
+    }
+
+    /**
+     * Hash a position given from the side to move.
+     *
+     * @param mine   Stones of the side to move.
+     * @param theirs Stones of the opponent.
+     * @return A well-mixed 64-bit key.
+     */
+    static long hash(long mine, long theirs) {
+        return mix(mine ^ mix(theirs + 0x9E3779B97F4A7C15L));
+    }
+
+    /**
+     * SplitMix64 finalizer.
+     */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Pack a search result into an entry's data word.
+     *
+     * @param score The score, already adjusted to be independent of the ply.
+     * @param depth Remaining depth the score was searched to (0-255).
+     * @param bound {@link #EXACT}, {@link #LOWER} or {@link #UPPER}.
+     * @param move  Best move found, or -1 for none.
+     * @return The data word.
+     */
+    static long pack(int score, int depth, int bound, int move) {
+        return (score & 0xFFFFFFFFL)
+                | ((long) (depth & 0xFF) << 32)
+                | ((long) bound << 40)
+                | ((long) (move + 1) << 42);
+    }
+
+    static int score(long data) {
+        return (int) data;
+    }
+
+    static int depth(long data) {
+        return (int) (data >>> 32) & 0xFF;
+    }
+
+    static int bound(long data) {
+        return (int) (data >>> 40) & 3;
+    }
+
+    static int move(long data) {
+        return ((int) (data >>> 42) & 0xFF) - 1;
+    }
+
+    /**
+     * Look up a position.
+     *
+     * @param key The position hash.
+     * @return The entry's data word, or 0 on a miss.
+     */
+    long probe(long key) {
+        long index = key & mask;
+        ByteBuffer chunk = chunks[(int) (index >>> CHUNK_SHIFT)];
+        int offset = (int) (index & CHUNK_MASK) * ENTRY_BYTES;
+
+        long check = (long) LONGS.getOpaque(chunk, offset);
+        long data = (long) LONGS.getOpaque(chunk, offset + 8);
+
+        probes.increment();
+        if ((check ^ data) == key && data != 0) {
+            hits.increment();
+            return data;
+        }
+        if (data != 0) {
+            collisions.increment(); // Slot holds another position, or a torn write
+        }
+        return 0;
+    }
+
+    /**
+     * Store a position, replacing the slot unless it holds a deeper result for
+     * the same position.
+     *
+     * @param key  The position hash.
+     * @param data The data word from {@link #pack}.
+     */
+    void store(long key, long data) {
+        long index = key & mask;
+        ByteBuffer chunk = chunks[(int) (index >>> CHUNK_SHIFT)];
+        int offset = (int) (index & CHUNK_MASK) * ENTRY_BYTES;
+
+        long oldCheck = (long) LONGS.getOpaque(chunk, offset);
+        long oldData = (long) LONGS.getOpaque(chunk, offset + 8);
+        if ((oldCheck ^ oldData) == key && depth(oldData) > depth(data)) {
+            return;
+        }
+
+        LONGS.setOpaque(chunk, offset, key ^ data);
+        LONGS.setOpaque(chunk, offset + 8, data);
+    }
+
+    /**
+     * @return Number of entries the table can hold.
+     */
+    long capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Fraction of slots in use, estimated from up to the first million entries.
+     *
+     * @return Occupancy between 0 and 1.
+     */
+    double occupancy() {
+        long sample = Math.min(capacity(), 1 << 20);
+        long used = 0;
+        for (long index = 0; index < sample; index++) {
+            ByteBuffer chunk = chunks[(int) (index >>> CHUNK_SHIFT)];
+            if ((long) LONGS.getOpaque(chunk, (int) (index & CHUNK_MASK) * ENTRY_BYTES + 8) != 0) {
+                used++;
+            }
+        }
+        return (double) used / sample;
+    }
+
+    /**
+     * Fraction of probes that found a slot holding a different position.
+     *
+     * @return Collision rate between 0 and 1.
+     */
+    double collisionRate() {
+        long total = probes.sum();
+        return total == 0 ? 0 : (double) collisions.sum() / total;
+    }
+
+    /**
+     * Fraction of probes that found their position.
+     *
+     * @return Hit rate between 0 and 1.
+     */
+    double hitRate() {
+        long total = probes.sum();
+        return total == 0 ? 0 : (double) hits.sum() / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d MB, %d entries, occupancy %.1f%%, hits %.1f%%, collisions %.2f%%",
+                capacity() * ENTRY_BYTES / (1024 * 1024), capacity(),
+                occupancy() * 100, hitRate() * 100, collisionRate() * 100);
+    }
+}